@@ -1,5 +1,8 @@
 package be.vinci.ipl.catflix.authentication;
 
+import be.vinci.ipl.catflix.authentication.models.CacheStatistics;
+import be.vinci.ipl.catflix.authentication.models.Revocation;
+import be.vinci.ipl.catflix.authentication.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.authentication.models.UnsafeCredentials;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -7,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 public class AuthenticationController {
@@ -18,13 +22,16 @@ public class AuthenticationController {
     }
 
 
+    // The passwords are hashed asynchronously, the request thread is released until the response is ready
+
     @PostMapping("/authentication/connect")
-    public String connect(@RequestBody UnsafeCredentials credentials) {
+    public CompletableFuture<String> connect(@RequestBody UnsafeCredentials credentials) {
         if (credentials.invalid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
 
-        String token =  service.connect(credentials);
-        if (token == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
-        return token;
+        return service.connect(credentials).thenApply(token -> {
+            if (token == null) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            return token;
+        });
     }
 
 
@@ -35,24 +42,36 @@ public class AuthenticationController {
         return pseudo;
     }
 
+    @GetMapping("/authentication/verify/statistics")
+    public CacheStatistics readVerifyStatistics() {
+        return service.readCacheStatistics();
+    }
+
+    @GetMapping("/authentication/revocations")
+    public Iterable<Revocation> readRevocations(@RequestParam(defaultValue = "0") long since) {
+        return service.readRevocations(since);
+    }
+
 
     @PostMapping("/authentication/{pseudo}")
-    public ResponseEntity<Void> createOne(@PathVariable String pseudo, @RequestBody UnsafeCredentials credentials) {
+    public CompletableFuture<ResponseEntity<Void>> createOne(@PathVariable String pseudo, @RequestBody UnsafeCredentials credentials) {
         if (!Objects.equals(credentials.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         if (credentials.invalid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
 
-        boolean created = service.createOne(credentials);
-        if (!created) throw new ResponseStatusException(HttpStatus.CONFLICT);
-        else return new ResponseEntity<>(HttpStatus.CREATED);
+        return service.createOne(credentials).thenApply(created -> {
+            if (!created) throw new ResponseStatusException(HttpStatus.CONFLICT);
+            else return new ResponseEntity<>(HttpStatus.CREATED);
+        });
     }
 
     @PutMapping("/authentication/{pseudo}")
-    public void updateOne(@PathVariable String pseudo, @RequestBody UnsafeCredentials credentials) {
+    public CompletableFuture<Void> updateOne(@PathVariable String pseudo, @RequestBody UnsafeCredentials credentials) {
         if (!Objects.equals(credentials.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         if (credentials.invalid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
 
-        boolean found = service.updateOne(credentials);
-        if (!found) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        return service.updateOne(credentials).thenAccept(found -> {
+            if (!found) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        });
     }
 
     @DeleteMapping("/authentication/{pseudo}")
@@ -61,4 +80,10 @@ public class AuthenticationController {
         if (!found) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
     }
 
+
+    @GetMapping("/authentication/second-level-cache/statistics")
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return service.readSecondLevelCacheStatistics();
+    }
+
 }
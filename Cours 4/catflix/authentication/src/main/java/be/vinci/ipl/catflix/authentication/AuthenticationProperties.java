@@ -11,4 +11,11 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "be.vinci.ipl.catflix.authentication")
 public class AuthenticationProperties {
     private String secret;
+    private long tokenLifetime = 86400000; // in milliseconds, revocations are kept as long
+    private long revocationsPrune = 60000; // in milliseconds
+    private int tokenCacheSize = 10000;
+    private long tokenCacheTtl = 60000; // in milliseconds
+    private int hashThreads = 0; // number of available processors when 0
+    private int hashQueueSize = 100;
+    private int hashLogRounds = 10; // BCrypt work factor
 }
@@ -1,9 +1,37 @@
 package be.vinci.ipl.catflix.authentication;
 
 import be.vinci.ipl.catflix.authentication.models.SafeCredentials;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AuthenticationRepository extends CrudRepository<SafeCredentials, String> {
+
+    /**
+     * Inserts credentials unless the pseudo is taken, in a single statement
+     * @return the number of credentials inserted, 0 if the pseudo is taken
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "credentials")) // only invalidates the cache of this table
+    @Query(value = "insert into credentials (pseudo, password) " +
+            "select cast(:#{#credentials.pseudo} as varchar), cast(:#{#credentials.hashedPassword} as varchar) " +
+            "where not exists (select 1 from credentials where pseudo = :#{#credentials.pseudo})", nativeQuery = true)
+    int insert(SafeCredentials credentials);
+
+    /**
+     * Updates the password of credentials in a single statement, without reading them first
+     * @return the number of credentials updated, 0 if the credentials couldn't be found
+     */
+    @Modifying
+    @Transactional
+    @Query("update credentials c set c.hashedPassword = :#{#credentials.hashedPassword} where c.pseudo = :#{#credentials.pseudo}")
+    int update(SafeCredentials credentials);
+
 }
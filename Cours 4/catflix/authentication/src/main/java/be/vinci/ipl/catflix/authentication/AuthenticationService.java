@@ -1,51 +1,85 @@
 package be.vinci.ipl.catflix.authentication;
 
+import be.vinci.ipl.catflix.authentication.exceptions.ServiceUnavailableException;
+import be.vinci.ipl.catflix.authentication.models.CacheStatistics;
+import be.vinci.ipl.catflix.authentication.models.Revocation;
 import be.vinci.ipl.catflix.authentication.models.SafeCredentials;
+import be.vinci.ipl.catflix.authentication.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.authentication.models.UnsafeCredentials;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import org.mindrot.jbcrypt.BCrypt;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class AuthenticationService {
 
     private final AuthenticationRepository repository;
+    private final RevocationsRepository revocationsRepository;
     private final Algorithm jwtAlgorithm;
     private final JWTVerifier jwtVerifier;
+    private final TokenCache tokenCache;
+    private final PasswordHasher passwordHasher;
+    private final SecondLevelCache secondLevelCache;
+    private final long tokenLifetime;
 
-    public AuthenticationService(AuthenticationRepository repository, AuthenticationProperties properties) {
+    public AuthenticationService(AuthenticationRepository repository, RevocationsRepository revocationsRepository,
+                                 PasswordHasher passwordHasher, SecondLevelCache secondLevelCache, AuthenticationProperties properties) {
         this.repository = repository;
+        this.revocationsRepository = revocationsRepository;
+        this.passwordHasher = passwordHasher;
+        this.secondLevelCache = secondLevelCache;
         this.jwtAlgorithm = Algorithm.HMAC512(properties.getSecret());
-        this.jwtVerifier = JWT.require(this.jwtAlgorithm).withIssuer("auth0").build();
+        this.jwtVerifier = JWT.require(this.jwtAlgorithm).withIssuer("auth0").withClaimPresence("iat").withClaimPresence("exp").build();
+        this.tokenLifetime = properties.getTokenLifetime();
+        this.tokenCache = new TokenCache(properties.getTokenCacheSize(), properties.getTokenCacheTtl());
     }
 
 
     /**
      * Connects user with credentials
      * @param unsafeCredentials The credentials with insecure password
-     * @return The JWT token, or null if the user couldn't be connected
+     * @return The JWT token, or null if the user couldn't be connected, once the password is checked
+     * @throws ServiceUnavailableException when too many passwords are waiting to be checked
      */
-    public String connect(UnsafeCredentials unsafeCredentials) {
+    public CompletableFuture<String> connect(UnsafeCredentials unsafeCredentials) throws ServiceUnavailableException {
         SafeCredentials safeCredentials = repository.findById(unsafeCredentials.getPseudo()).orElse(null);
-        if (safeCredentials == null) return null;
-        if (!BCrypt.checkpw(unsafeCredentials.getPassword(), safeCredentials.getHashedPassword())) return null;
-        return JWT.create().withIssuer("auth0").withClaim("pseudo", safeCredentials.getPseudo()).sign(jwtAlgorithm);
+        if (safeCredentials == null) return CompletableFuture.completedFuture(null);
+        return passwordHasher.check(unsafeCredentials.getPassword(), safeCredentials.getHashedPassword()).thenApply(matches -> {
+            if (!matches) return null;
+            long now = System.currentTimeMillis();
+            return JWT.create().withIssuer("auth0").withClaim("pseudo", safeCredentials.getPseudo())
+                    .withIssuedAt(new Date(now)).withExpiresAt(new Date(now + tokenLifetime)).sign(jwtAlgorithm);
+        });
     }
 
 
     /**
      * Verifies JWT token
      * @param token The JWT token
-     * @return The pseudo of the user, or null if the token couldn't be verified
+     * @return The pseudo of the user, or null if the token couldn't be verified, has expired or was issued before a revocation
      */
     public String verify(String token) {
+        String cached = tokenCache.get(token);
+        if (cached != null) return cached;
+
         try {
-            String pseudo = jwtVerifier.verify(token).getClaim("pseudo").asString();
+            DecodedJWT decoded = jwtVerifier.verify(token);
+            String pseudo = decoded.getClaim("pseudo").asString();
+            if (pseudo == null) return null;
+            long generation = tokenCache.generation(pseudo); // read first, a deletion from now on prevents caching the token
             if (!repository.existsById(pseudo)) return null;
+            Revocation revocation = revocationsRepository.findById(pseudo).orElse(null);
+            if (revocation != null && revocation.revokes(decoded.getIssuedAt().getTime())) return null;
+            tokenCache.put(token, pseudo, generation);
             return pseudo;
         } catch (JWTVerificationException e) {
             return null;
@@ -54,38 +88,81 @@ public class AuthenticationService {
 
 
     /**
-     * Creates credentials in repository
+     * Creates credentials in repository, the tokens of a previous user with the same pseudo staying revoked
      * @param unsafeCredentials The credentials with insecure password
-     * @return True if the credentials were created, or false if they already exist
+     * @return True if the credentials were created, or false if they already exist, once the password is hashed
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
      */
-    public boolean createOne(UnsafeCredentials unsafeCredentials) {
-        if (repository.existsById(unsafeCredentials.getPseudo())) return false;
-        String hashedPassword = BCrypt.hashpw(unsafeCredentials.getPassword(), BCrypt.gensalt());
-        repository.save(unsafeCredentials.makeSafe(hashedPassword));
-        return true;
+    public CompletableFuture<Boolean> createOne(UnsafeCredentials unsafeCredentials) throws ServiceUnavailableException {
+        // Inserted by the hashing thread, a single statement
+        return passwordHasher.hash(unsafeCredentials.getPassword()).thenApply(hashedPassword -> {
+            try {
+                return repository.insert(unsafeCredentials.makeSafe(hashedPassword)) != 0;
+            } catch (DataIntegrityViolationException e) {
+                return false; // created concurrently, and refused by the primary key
+            }
+        });
     }
 
     /**
      * Updates credentials in repository
      * @param unsafeCredentials The credentials with insecure password
-     * @return True if the credentials were updated, or false if they couldn't be found
+     * @return True if the credentials were updated, or false if they couldn't be found, once the password is hashed
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
      */
-    public boolean updateOne(UnsafeCredentials unsafeCredentials) {
-        if (!repository.existsById(unsafeCredentials.getPseudo())) return false;
-        String hashedPassword = BCrypt.hashpw(unsafeCredentials.getPassword(), BCrypt.gensalt());
-        repository.save(unsafeCredentials.makeSafe(hashedPassword));
-        return true;
+    public CompletableFuture<Boolean> updateOne(UnsafeCredentials unsafeCredentials) throws ServiceUnavailableException {
+        // Updated by the hashing thread, a single statement
+        return passwordHasher.hash(unsafeCredentials.getPassword()).thenApply(hashedPassword -> {
+            if (repository.update(unsafeCredentials.makeSafe(hashedPassword)) == 0) return false;
+            tokenCache.invalidate(unsafeCredentials.getPseudo());
+            return true;
+        });
     }
 
     /**
-     * Deletes credentials in repository
+     * Deletes credentials in repository, and revokes the tokens issued until now
      * @param pseudo The pseudo of the user
      * @return True if the credentials were deleted, or false if they couldn't be found
      */
     public boolean deleteOne(String pseudo) {
         if (!repository.existsById(pseudo)) return false;
         repository.deleteById(pseudo);
+        tokenCache.invalidate(pseudo);
+        revocationsRepository.save(new Revocation(pseudo, System.currentTimeMillis()));
         return true;
     }
 
+    /**
+     * Reads the statistics of the verified tokens cache
+     * @return The hits, misses, evictions and size of the cache
+     */
+    public CacheStatistics readCacheStatistics() {
+        return tokenCache.statistics();
+    }
+
+    /**
+     * Lists the revocations made since a time, the tokens of these users issued until their revocation being refused
+     * @param since Time of the last revocation already known, in milliseconds since epoch, or 0 to read them all
+     * @return The revocations made after this time
+     */
+    public Iterable<Revocation> readRevocations(long since) {
+        return revocationsRepository.findByRevokedAtGreaterThan(since);
+    }
+
+    /**
+     * Forgets the revocations older than the lifetime of a token, as the tokens they refuse have expired
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.authentication.revocations-prune:60000}")
+    public void pruneRevocations() {
+        revocationsRepository.deleteRevokedBefore(System.currentTimeMillis() - tokenLifetime);
+    }
+
+    /**
+     * Reads the statistics of the Hibernate second-level cache
+     * @return The hits, misses and puts of the entity and query caches, and the number of statements sent to the database
+     */
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return secondLevelCache.statistics();
+    }
+
 }
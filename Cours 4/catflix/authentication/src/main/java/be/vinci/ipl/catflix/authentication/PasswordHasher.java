@@ -0,0 +1,63 @@
+package be.vinci.ipl.catflix.authentication;
+
+import be.vinci.ipl.catflix.authentication.exceptions.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and checks passwords on a dedicated bounded pool, so that a burst of connections
+ * cannot use all request threads and stall token verification.
+ * The results are given as futures: the request thread is released while the password waits in the queue and is hashed.
+ */
+@Component
+public class PasswordHasher {
+
+    private final ThreadPoolExecutor executor;
+    private final int logRounds;
+
+    public PasswordHasher(AuthenticationProperties properties) {
+        int threads = properties.getHashThreads() > 0 ? properties.getHashThreads() : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getHashQueueSize()), new ThreadPoolExecutor.AbortPolicy());
+        this.logRounds = properties.getHashLogRounds();
+    }
+
+    /**
+     * Hashes a password with the configured work factor
+     * @param password The password
+     * @return The hashed password, once hashed on the pool
+     * @throws ServiceUnavailableException when too many passwords are waiting to be hashed
+     */
+    public CompletableFuture<String> hash(String password) throws ServiceUnavailableException {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(logRounds)));
+    }
+
+    /**
+     * Checks a password against a hashed password
+     * @param password       The password
+     * @param hashedPassword The hashed password
+     * @return true if the password matches, false otherwise, once checked on the pool
+     * @throws ServiceUnavailableException when too many passwords are waiting to be checked
+     */
+    public CompletableFuture<Boolean> check(String password, String hashedPassword) throws ServiceUnavailableException {
+        return run(() -> BCrypt.checkpw(password, hashedPassword));
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> task) throws ServiceUnavailableException {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,72 @@
+package be.vinci.ipl.catflix.authentication;
+
+import be.vinci.ipl.catflix.authentication.exceptions.ServiceUnavailableException;
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Benchmark of the password hashing, run with the benchmark profile:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=benchmark
+ * Prints the time of one BCrypt hash at the configured work factor (hash-log-rounds),
+ * then the throughput of the hashing pool when as many hashes as it can queue are submitted at once.
+ * The application stops at the end.
+ */
+@Component
+@Profile("benchmark")
+public class PasswordHasherBenchmark implements CommandLineRunner {
+
+    private static final int WARM_UP = 5;
+
+    private final PasswordHasher passwordHasher;
+    private final ConfigurableApplicationContext context;
+    private final int logRounds;
+    private final int hashes;
+    private final int poolSize;
+
+    /**
+     * @param hashes Number of hashes measured one after the other
+     */
+    public PasswordHasherBenchmark(PasswordHasher passwordHasher, ConfigurableApplicationContext context, AuthenticationProperties properties,
+                                   @Value("${be.vinci.ipl.catflix.authentication.benchmark-hashes:20}") int hashes) {
+        this.passwordHasher = passwordHasher;
+        this.context = context;
+        this.logRounds = properties.getHashLogRounds();
+        this.hashes = hashes;
+        int threads = properties.getHashThreads() > 0 ? properties.getHashThreads() : Runtime.getRuntime().availableProcessors();
+        this.poolSize = threads + properties.getHashQueueSize();
+    }
+
+    @Override
+    public void run(String... args) {
+        for (int i = 0; i < WARM_UP; i++) BCrypt.hashpw("benchmark", BCrypt.gensalt(logRounds));
+        long start = System.nanoTime();
+        for (int i = 0; i < hashes; i++) BCrypt.hashpw("benchmark", BCrypt.gensalt(logRounds));
+        System.out.printf("BCrypt with %d log rounds: %.1f ms per hash%n", logRounds, (System.nanoTime() - start) / 1_000_000.0 / hashes);
+
+        List<CompletableFuture<String>> submitted = new ArrayList<>(poolSize);
+        int rejected = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < poolSize + 1; i++) {
+            try {
+                submitted.add(passwordHasher.hash("benchmark"));
+            } catch (ServiceUnavailableException e) {
+                rejected++;
+            }
+        }
+        CompletableFuture.allOf(submitted.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("Hashing pool: %d hashes in %.2f s (%.1f hashes/s), %d rejected%n",
+                submitted.size(), seconds, submitted.size() / seconds, rejected);
+        System.exit(SpringApplication.exit(context));
+    }
+
+}
@@ -0,0 +1,24 @@
+package be.vinci.ipl.catflix.authentication;
+
+import be.vinci.ipl.catflix.authentication.models.Revocation;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RevocationsRepository extends CrudRepository<Revocation, String> {
+
+    Iterable<Revocation> findByRevokedAtGreaterThan(long since);
+
+    /**
+     * Deletes the revocations made before a time in a single statement
+     * @return the number of revocations deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from revocations r where r.revokedAt < :before")
+    int deleteRevokedBefore(long before);
+
+}
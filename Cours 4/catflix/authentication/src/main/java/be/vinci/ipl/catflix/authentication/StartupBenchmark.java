@@ -0,0 +1,59 @@
+package be.vinci.ipl.catflix.authentication;
+
+import org.mindrot.jbcrypt.BCrypt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmark of the startup with many credentials, run with the startup-benchmark profile:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=persistent,startup-benchmark
+ * Prints the time since the JVM started and the generated credentials found, then generates the missing ones,
+ * so the first run fills the file database and the next ones measure a startup with the credentials already stored.
+ * Without the persistent profile, every run starts empty: the startup plus the insertion is the cost of reloading the credentials.
+ * All generated credentials share one password hash, as hashing each of them would take hours.
+ * The application stops at the end.
+ */
+@Component
+@Profile("startup-benchmark")
+public class StartupBenchmark implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+    private final int logRounds;
+    private final int size;
+
+    /**
+     * @param size Number of generated credentials in the table
+     */
+    public StartupBenchmark(JdbcTemplate jdbcTemplate, ConfigurableApplicationContext context, AuthenticationProperties properties,
+                            @Value("${be.vinci.ipl.catflix.authentication.startup-benchmark-size:1000000}") int size) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.logRounds = properties.getHashLogRounds();
+        this.size = size;
+    }
+
+    @Override
+    public void run(String... args) {
+        long startup = ManagementFactory.getRuntimeMXBean().getUptime();
+        Integer found = jdbcTemplate.queryForObject("select count(*) from credentials where pseudo like 'benchmark%'", Integer.class);
+        int existing = found == null ? 0 : found;
+        System.out.printf("--- Started with %d generated credentials in %d ms since the JVM started%n", existing, startup);
+
+        if (existing < size) {
+            long start = System.nanoTime();
+            jdbcTemplate.update("insert into credentials (pseudo, password) select 'benchmark' || x, ? from system_range(?, ?)",
+                    BCrypt.hashpw("benchmark", BCrypt.gensalt(logRounds)), existing + 1, size);
+            System.out.printf("--- %d credentials inserted in %d ms%n", size - existing, (System.nanoTime() - start) / 1_000_000);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+}
@@ -0,0 +1,113 @@
+package be.vinci.ipl.catflix.authentication;
+
+import be.vinci.ipl.catflix.authentication.models.CacheStatistics;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of verified tokens, evicting the oldest token when full and forgetting tokens after a time to live.
+ * Readers don't lock: the tokens are kept in a concurrent map, and their insertion order in a concurrent queue.
+ * Each user has a generation, incremented when their tokens are invalidated, and a token verified
+ * while the generation changed is never returned, so a verification racing with a deletion can't be cached.
+ */
+public class TokenCache {
+
+    // Users share generations by hash of their pseudo, invalidating a user may only cause misses for the others
+    private static final int GENERATION_STRIPES = 4096;
+
+    private record Entry(String token, String pseudo, long generation, long expiresAt) {
+    }
+
+    private final int maxSize;
+    private final long ttl;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize Maximum number of tokens kept
+     * @param ttl     Time to live of a token, in milliseconds
+     */
+    public TokenCache(int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Gets the pseudo of a verified token
+     * @param token The JWT token
+     * @return The pseudo, or null if the token isn't cached, has expired or was invalidated
+     */
+    public String get(String token) {
+        Entry entry = entries.get(token);
+        if (entry != null && (entry.expiresAt() < System.currentTimeMillis() || entry.generation() != generation(entry.pseudo()))) {
+            if (entries.remove(token, entry)) evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.pseudo();
+    }
+
+    /**
+     * Reads the generation of a user, to be read before checking the user and given to put afterward
+     * @param pseudo The pseudo of the user
+     * @return The current generation
+     */
+    public long generation(String pseudo) {
+        return generations.get(stripe(pseudo));
+    }
+
+    /**
+     * Adds a verified token, unless the tokens of the user were invalidated since it was verified
+     * @param token      The JWT token
+     * @param pseudo     The pseudo of the user
+     * @param generation The generation of the user read before verifying the token
+     */
+    public void put(String token, String pseudo, long generation) {
+        if (maxSize <= 0 || generation != generation(pseudo)) return;
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(token, pseudo, generation, now + ttl);
+        entries.put(token, entry);
+        insertionOrder.add(entry);
+
+        // The oldest tokens expire first, they are forgotten when expired or when the cache is full
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null && (oldest.expiresAt() < now || entries.size() > maxSize)) {
+            if (insertionOrder.remove(oldest) && entries.remove(oldest.token(), oldest)) evictions.increment();
+        }
+    }
+
+    /**
+     * Forgets all tokens of a user, including those being verified
+     * @param pseudo The pseudo of the user
+     */
+    public void invalidate(String pseudo) {
+        generations.incrementAndGet(stripe(pseudo));
+    }
+
+    private static int stripe(String pseudo) {
+        return Math.floorMod(pseudo.hashCode(), GENERATION_STRIPES);
+    }
+
+    /**
+     * Reads the statistics of the cache
+     * @return The statistics
+     */
+    public CacheStatistics statistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+}
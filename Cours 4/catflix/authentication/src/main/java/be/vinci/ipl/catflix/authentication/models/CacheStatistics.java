@@ -0,0 +1,17 @@
+package be.vinci.ipl.catflix.authentication.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int size;
+}
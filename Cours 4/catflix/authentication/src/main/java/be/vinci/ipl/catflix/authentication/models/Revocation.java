@@ -0,0 +1,29 @@
+package be.vinci.ipl.catflix.authentication.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "revocations")
+@Table(indexes = @Index(name = "revocations_revoked_at", columnList = "revoked_at"))
+public class Revocation {
+    @Id
+    @Column(nullable = false)
+    private String pseudo;
+
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt; // in milliseconds since epoch, the tokens issued until then are refused
+
+    /**
+     * Checks if a token was issued before the revocation, the issue time being rounded down to the second
+     * @param issuedAt The issue time of the token, in milliseconds since epoch
+     * @return true if the token is revoked
+     */
+    public boolean revokes(long issuedAt) {
+        return issuedAt <= revokedAt;
+    }
+}
@@ -10,7 +10,7 @@ import lombok.*;
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
-@Entity(name = "credentials")
+@Entity(name = "credentials") // not kept in the second-level cache, so a changed password is never checked against the previous one
 public class SafeCredentials {
     @Id
     @Column(nullable = false)
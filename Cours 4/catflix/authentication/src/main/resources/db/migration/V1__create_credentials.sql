@@ -0,0 +1,8 @@
+CREATE TABLE credentials (
+    pseudo   VARCHAR(255) NOT NULL PRIMARY KEY,
+    password VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE revocations (
+    pseudo VARCHAR(255) NOT NULL PRIMARY KEY
+);
@@ -0,0 +1,3 @@
+INSERT INTO credentials(pseudo, password) VALUES ('PetWard', 'password');
+INSERT INTO credentials(pseudo, password) VALUES ('Cat4Life', 'password');
+INSERT INTO credentials(pseudo, password) VALUES ('pettier', 'password');
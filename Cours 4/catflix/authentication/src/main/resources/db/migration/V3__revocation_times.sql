@@ -0,0 +1,4 @@
+ALTER TABLE revocations ADD COLUMN revoked_at BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE revocations ALTER COLUMN revoked_at DROP DEFAULT;
+
+CREATE INDEX revocations_revoked_at ON revocations (revoked_at);
@@ -0,0 +1,15 @@
+package be.vinci.ipl.catflix.gateway;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.authentication")
+public class AuthenticationProperties {
+    private String secret; // same secret as the authentication service, tokens are verified remotely when absent
+    private long tokenLifetime = 86400000; // in milliseconds, same lifetime as the authentication service
+}
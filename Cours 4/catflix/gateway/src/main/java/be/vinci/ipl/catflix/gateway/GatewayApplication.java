@@ -1,13 +1,18 @@
 package be.vinci.ipl.catflix.gateway;
 
+import be.vinci.ipl.catflix.gateway.loadbalancer.LoadBalancerConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfiguration.class)
+@EnableScheduling
 public class GatewayApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,32 @@
+package be.vinci.ipl.catflix.gateway;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class GatewayConfiguration {
+
+    /**
+     * Executor used to call several services concurrently
+     * @param properties  Gateway properties
+     * @param environment Environment, starting a virtual thread per call when Spring Boot uses virtual threads,
+     *                    that is when spring.threads.virtual.enabled is true and the JVM is Java 21 or later
+     * @return The executor
+     */
+    @Bean
+    public AsyncTaskExecutor fanOutExecutor(GatewayProperties properties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) return new VirtualThreadTaskExecutor("fan-out-");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getFanOutThreads());
+        executor.setMaxPoolSize(properties.getFanOutThreads());
+        executor.setThreadNamePrefix("fan-out-");
+        return executor;
+    }
+
+}
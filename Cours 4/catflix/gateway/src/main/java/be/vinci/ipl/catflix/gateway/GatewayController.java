@@ -1,10 +1,12 @@
 package be.vinci.ipl.catflix.gateway;
 
 import be.vinci.ipl.catflix.gateway.models.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Objects;
 
@@ -20,7 +22,7 @@ public class GatewayController {
 
     @PostMapping("/auth")
     public String connect(@RequestBody Credentials credentials) {
-        return service.connect(credentials); // throws BadRequestException & UnauthorizedException
+        return service.connect(credentials); // throws BadRequestException, UnauthorizedException & ServiceUnavailableException
     }
 
 
@@ -64,10 +66,21 @@ public class GatewayController {
         return service.readReviewsFromUser(pseudo);
     }
 
+    @GetMapping("/users/{pseudo}/profile")
+    public UserProfile readUserProfile(@PathVariable String pseudo) {
+        return service.readProfile(pseudo); // throws NotFoundException
+    }
+
 
     @GetMapping("/videos")
-    public Iterable<Video> readVideos() {
-        return service.readVideos();
+    public ResponseEntity<Iterable<Video>> readVideos(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return service.readVideos(limit, after, ifNoneMatch); // throws BadRequestException
+    }
+
+    @GetMapping(value = "/videos", params = "stream", produces = "application/x-ndjson")
+    public StreamingResponseBody streamVideos() {
+        return service.streamVideos();
     }
 
 
@@ -88,8 +101,9 @@ public class GatewayController {
     }
 
     @GetMapping("/videos/{hash}")
-    public Video readVideo(@PathVariable String hash) {
-        return service.readVideo(hash); // throws NotFoundException
+    public ResponseEntity<Video> readVideo(@PathVariable String hash,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return service.readVideo(hash, ifNoneMatch); // throws NotFoundException
     }
 
     @PutMapping("/videos/{hash}")
@@ -111,8 +125,9 @@ public class GatewayController {
 
 
     @GetMapping("/videos/{hash}/reviews")
-    public Iterable<Review> readVideoReviews(@PathVariable String hash) {
-        return service.readReviewsOfVideo(hash);
+    public ResponseEntity<Iterable<Review>> readVideoReviews(@PathVariable String hash,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return service.readReviewsOfVideo(hash, ifNoneMatch);
     }
 
 
@@ -151,4 +166,25 @@ public class GatewayController {
         service.deleteReview(pseudo, hash); // throws NotFoundException
     }
 
+
+    @GetMapping("/circuit-breakers")
+    public Iterable<CircuitBreakerStatistics> readCircuitBreakers() {
+        return service.readCircuitBreakers();
+    }
+
+    @GetMapping("/response-cache/statistics")
+    public Iterable<ResponseCacheStatistics> readResponseCacheStatistics() {
+        return service.readResponseCacheStatistics();
+    }
+
+    @GetMapping("/coalescing/statistics")
+    public Iterable<CoalescingStatistics> readCoalescingStatistics() {
+        return service.readCoalescingStatistics();
+    }
+
+    @GetMapping("/http-client/statistics")
+    public Iterable<HttpClientPoolStatistics> readHttpClientPoolStatistics() {
+        return service.readHttpClientPoolStatistics();
+    }
+
 }
@@ -0,0 +1,23 @@
+package be.vinci.ipl.catflix.gateway;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.gateway")
+public class GatewayProperties {
+    private int fanOutThreads = 16;
+    private long profileTimeout = 1000; // in milliseconds
+    private long revocationsRefresh = 5000; // in milliseconds
+    private int responseCacheSize = 10000;
+    private long videosCacheTtl = 5000; // in milliseconds, 0 to disable
+    private long videoCacheTtl = 30000; // in milliseconds, 0 to disable
+    private long bestVideosCacheTtl = 10000; // in milliseconds, 0 to disable
+    private long userCacheTtl = 30000; // in milliseconds, 0 to disable
+    private long videoReviewsCacheTtl = 5000; // in milliseconds, 0 to disable
+    private long userDeletionSettleTime = 5000; // in milliseconds, responses of the video and review routes aren't cached while the videos and reviews are deleted
+}
@@ -5,9 +5,22 @@ import be.vinci.ipl.catflix.gateway.data.ReviewsProxy;
 import be.vinci.ipl.catflix.gateway.data.UsersProxy;
 import be.vinci.ipl.catflix.gateway.data.VideosProxy;
 import be.vinci.ipl.catflix.gateway.exceptions.*;
+import be.vinci.ipl.catflix.gateway.httpclient.HttpClientPool;
 import be.vinci.ipl.catflix.gateway.models.*;
+import be.vinci.ipl.catflix.gateway.resilience.CircuitBreakers;
 import feign.FeignException;
+import feign.Response;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
 
 @Service
 public class GatewayService {
@@ -16,12 +29,29 @@ public class GatewayService {
     private final ReviewsProxy reviewsProxy;
     private final UsersProxy usersProxy;
     private final VideosProxy videosProxy;
+    private final TokenVerifier tokenVerifier;
+    private final AsyncTaskExecutor fanOutExecutor;
+    private final CircuitBreakers circuitBreakers;
+    private final HttpClientPool httpClientPool;
+    private final long profileTimeout;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private final GatewayProperties properties;
 
-    public GatewayService(AuthenticationProxy authenticationProxy, ReviewsProxy reviewsProxy, UsersProxy usersProxy, VideosProxy videosProxy) {
+    public GatewayService(AuthenticationProxy authenticationProxy, ReviewsProxy reviewsProxy, UsersProxy usersProxy, VideosProxy videosProxy,
+                          TokenVerifier tokenVerifier, AsyncTaskExecutor fanOutExecutor, CircuitBreakers circuitBreakers, HttpClientPool httpClientPool,
+                          GatewayProperties properties) {
         this.authenticationProxy = authenticationProxy;
         this.reviewsProxy = reviewsProxy;
         this.usersProxy = usersProxy;
         this.videosProxy = videosProxy;
+        this.tokenVerifier = tokenVerifier;
+        this.fanOutExecutor = fanOutExecutor;
+        this.circuitBreakers = circuitBreakers;
+        this.httpClientPool = httpClientPool;
+        this.profileTimeout = properties.getProfileTimeout();
+        this.responseCache = new ResponseCache(properties.getResponseCacheSize());
+        this.properties = properties;
     }
 
     /**
@@ -30,20 +60,22 @@ public class GatewayService {
      * @param credentials Credentials of the user
      * @return Connection token
      * @throws BadRequestException   when the credentials are invalid
-     * @throws UnauthorizedException when the credentials are incorrect
+     * @throws UnauthorizedException       when the credentials are incorrect
+     * @throws ServiceUnavailableException when too many passwords are waiting to be checked
      */
-    public String connect(Credentials credentials) throws BadRequestException, UnauthorizedException {
+    public String connect(Credentials credentials) throws BadRequestException, UnauthorizedException, ServiceUnavailableException {
         try {
             return authenticationProxy.connect(credentials);
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 401) throw new UnauthorizedException();
+            else if (e.status() == 503) throw new ServiceUnavailableException();
             else throw e;
         }
     }
 
     /**
-     * Get user pseudo from connection token
+     * Get user pseudo from connection token, verified locally when possible
      *
      * @param token Connection token
      * @throws UnauthorizedException when the credentials are incorrect
@@ -51,6 +83,13 @@ public class GatewayService {
      */
     public void verify(String token,
                        String expectedPseudo) throws UnauthorizedException, ForbiddenException {
+        if (tokenVerifier.isLocal()) {
+            String userPseudo = tokenVerifier.verify(token);
+            if (userPseudo == null) throw new UnauthorizedException();
+            if (!userPseudo.equals(expectedPseudo)) throw new ForbiddenException();
+            return;
+        }
+
         try {
             String userPseudo = authenticationProxy.verify(token);
             if (!userPseudo.equals(expectedPseudo)) throw new ForbiddenException();
@@ -70,6 +109,7 @@ public class GatewayService {
     public void createUser(UserWithCredentials user) throws BadRequestException, ConflictException {
         try {
             usersProxy.createUser(user.getPseudo(), user);
+            responseCache.invalidate("user", user.getPseudo());
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 409) throw new ConflictException();
@@ -78,7 +118,7 @@ public class GatewayService {
     }
 
     /**
-     * Read user information
+     * Read user information, from the cache when possible
      *
      * @param pseudo Pseudo of the user
      * @return User information
@@ -86,13 +126,60 @@ public class GatewayService {
      */
     public User readUser(String pseudo) throws NotFoundException {
         try {
-            return usersProxy.readUser(pseudo);
+            return responseCache.get("user", pseudo, properties.getUserCacheTtl(), () -> usersProxy.readUser(pseudo));
         } catch (FeignException e) {
             if (e.status() == 404) throw new NotFoundException();
             else throw e;
         }
     }
 
+    /**
+     * Read user information, videos and reviews at once, calling the services concurrently
+     *
+     * @param pseudo Pseudo of the user
+     * @return User profile, with the parts that could not be read in time listed as missing
+     * @throws NotFoundException when the user could not be found
+     */
+    public UserProfile readProfile(String pseudo) throws NotFoundException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(profileTimeout);
+
+        Future<User> user = fanOutExecutor.submit(() -> readUser(pseudo));
+        Future<Iterable<Video>> videos = fanOutExecutor.submit(() -> readVideosFromUser(pseudo));
+        Future<Iterable<Review>> reviews = fanOutExecutor.submit(() -> readReviewsFromUser(pseudo));
+
+        UserProfile profile = new UserProfile();
+        profile.setUser(await(user, deadline, "user", profile.getMissing()));
+        profile.setVideos(await(videos, deadline, "videos", profile.getMissing()));
+        profile.setReviews(await(reviews, deadline, "reviews", profile.getMissing()));
+        return profile;
+    }
+
+    /**
+     * Wait for the result of a concurrent call until the deadline
+     *
+     * @param future   Concurrent call
+     * @param deadline Deadline, in nanoseconds as given by System.nanoTime()
+     * @param part     Name of the part being read
+     * @param missing  List of missing parts, completed if the call failed or didn't finish in time
+     * @return The result of the call, or null if it failed or didn't finish in time
+     * @throws NotFoundException when the call failed because the resource could not be found
+     */
+    private <T> T await(Future<T> future, long deadline, String part, List<String> missing) throws NotFoundException {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NotFoundException notFound) throw notFound;
+            System.err.println("Could not read " + part + ": " + e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        missing.add(part);
+        return null;
+    }
+
     /**
      * Update user
      *
@@ -103,6 +190,7 @@ public class GatewayService {
     public void updateUser(UserWithCredentials user) throws BadRequestException, NotFoundException {
         try {
             usersProxy.updateUser(user.getPseudo(), user);
+            responseCache.invalidate("user", user.getPseudo());
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 404) throw new NotFoundException();
@@ -119,6 +207,10 @@ public class GatewayService {
     public void deleteUser(String pseudo) throws NotFoundException {
         try {
             usersProxy.deleteUser(pseudo);
+            tokenVerifier.revoke(pseudo);
+            responseCache.invalidate("user", pseudo);
+            // The videos and reviews of the user are deleted asynchronously, and may be in the responses of these routes until then
+            responseCache.invalidateRoutes(List.of("videos", "video", "video-reviews", "best-videos"), properties.getUserDeletionSettleTime());
         } catch (FeignException e) {
             if (e.status() == 404) throw new NotFoundException();
             else throw e;
@@ -126,12 +218,48 @@ public class GatewayService {
     }
 
     /**
-     * Read all videos
+     * Read all videos, or a page of videos ordered by hash, from the cache when possible
      *
-     * @return all videos
+     * @param limit       Maximum number of videos in the page, or null with after null to read all videos
+     * @param after       Hash of the last video of the previous page, or null for the first page
+     * @param ifNoneMatch ETag of the videos already known by the client, or null
+     * @return the videos, or 304 Not Modified without body when they match the ETag
+     * @throws BadRequestException when the limit is invalid
      */
-    public Iterable<Video> readVideos() {
-        return videosProxy.readVideos();
+    public ResponseEntity<Iterable<Video>> readVideos(Integer limit, String after, String ifNoneMatch) throws BadRequestException {
+        try {
+            return conditional(responseCache.get("videos", limit + ":" + after, properties.getVideosCacheTtl(),
+                    () -> videosProxy.readVideos(limit, after, ifNoneMatch)), ifNoneMatch);
+        } catch (FeignException e) {
+            if (e.status() == 304) return notModified(e);
+            else if (e.status() == 400) throw new BadRequestException();
+            else throw e;
+        }
+    }
+
+    /**
+     * Stream all videos as newline delimited JSON, without reading them all in memory
+     *
+     * @return the stream of videos, copied from the videos service as it is read
+     */
+    public StreamingResponseBody streamVideos() {
+        Response response = videosProxy.streamVideos(true);
+        if (response.status() < 200 || response.status() >= 300) {
+            // Error responses are returned as they are by Feign for this return type, they are thrown as for the other reads
+            FeignException e = FeignException.errorStatus("VideosProxy#streamVideos", response);
+            response.close();
+            throw e;
+        }
+        if (response.body() == null) {
+            response.close();
+            return output -> {
+            };
+        }
+        return output -> {
+            try (response; InputStream body = response.body().asInputStream()) {
+                body.transferTo(output);
+            }
+        };
     }
 
     /**
@@ -144,6 +272,9 @@ public class GatewayService {
     public void createVideo(Video video) throws BadRequestException, ConflictException {
         try {
             videosProxy.createVideo(video.getHash(), video);
+            responseCache.invalidateRoute("videos");
+            responseCache.invalidate("video", video.getHash());
+            requestCoalescer.invalidate("video", video.getHash());
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 409) throw new ConflictException();
@@ -152,17 +283,32 @@ public class GatewayService {
     }
 
     /**
-     * Read a video
+     * Read a video, from the cache when possible
      *
      * @param hash Hash of the video
      * @return The video
      * @throws NotFoundException when the video couldn't be found
      */
     public Video readVideo(String hash) throws NotFoundException {
+        return readVideo(hash, null).getBody();
+    }
+
+    /**
+     * Read a video, from the cache when possible, sharing the call to the service with the identical reads in progress
+     *
+     * @param hash        Hash of the video
+     * @param ifNoneMatch ETag of the video already known by the client, or null
+     * @return The video, or 304 Not Modified without body when it matches the ETag
+     * @throws NotFoundException when the video couldn't be found
+     */
+    public ResponseEntity<Video> readVideo(String hash, String ifNoneMatch) throws NotFoundException {
         try {
-            return videosProxy.readVideo(hash);
+            return conditional(responseCache.get("video", hash, properties.getVideoCacheTtl(),
+                    () -> requestCoalescer.read("video", hash + ":" + ifNoneMatch,
+                            () -> videosProxy.readVideo(hash, ifNoneMatch))), ifNoneMatch);
         } catch (FeignException e) {
-            if (e.status() == 404) throw new NotFoundException();
+            if (e.status() == 304) return notModified(e);
+            else if (e.status() == 404) throw new NotFoundException();
             else throw e;
         }
     }
@@ -177,6 +323,10 @@ public class GatewayService {
     public void updateVideo(Video video) throws BadRequestException, NotFoundException {
         try {
             videosProxy.updateVideo(video.getHash(), video);
+            responseCache.invalidate("video", video.getHash());
+            requestCoalescer.invalidate("video", video.getHash());
+            responseCache.invalidateRoute("videos");
+            responseCache.invalidateRoute("best-videos");
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 404) throw new NotFoundException();
@@ -193,6 +343,12 @@ public class GatewayService {
     public void deleteVideo(String hash) throws NotFoundException {
         try {
             videosProxy.deleteVideo(hash);
+            responseCache.invalidate("video", hash);
+            requestCoalescer.invalidate("video", hash);
+            responseCache.invalidate("video-reviews", hash);
+            requestCoalescer.invalidate("video-reviews", hash);
+            responseCache.invalidateRoute("videos");
+            responseCache.invalidateRoute("best-videos");
         } catch (FeignException e) {
             if (e.status() == 404) throw new NotFoundException();
             else throw e;
@@ -219,6 +375,9 @@ public class GatewayService {
     public void createReview(Review review) throws BadRequestException, ConflictException {
         try {
             reviewsProxy.createReview(review.getPseudo(), review.getHash(), review);
+            responseCache.invalidate("video-reviews", review.getHash());
+            requestCoalescer.invalidate("video-reviews", review.getHash());
+            responseCache.invalidateRoute("best-videos");
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 409) throw new ConflictException();
@@ -253,6 +412,9 @@ public class GatewayService {
     public void updateReview(Review review) throws BadRequestException, NotFoundException {
         try {
             reviewsProxy.updateReview(review.getPseudo(), review.getHash(), review);
+            responseCache.invalidate("video-reviews", review.getHash());
+            requestCoalescer.invalidate("video-reviews", review.getHash());
+            responseCache.invalidateRoute("best-videos");
         } catch (FeignException e) {
             if (e.status() == 400) throw new BadRequestException();
             else if (e.status() == 404) throw new NotFoundException();
@@ -270,6 +432,9 @@ public class GatewayService {
     public void deleteReview(String pseudo, String hash) throws NotFoundException {
         try {
             reviewsProxy.deleteReview(pseudo, hash);
+            responseCache.invalidate("video-reviews", hash);
+            requestCoalescer.invalidate("video-reviews", hash);
+            responseCache.invalidateRoute("best-videos");
         } catch (FeignException e) {
             if (e.status() == 404) throw new NotFoundException();
             else throw e;
@@ -287,22 +452,111 @@ public class GatewayService {
     }
 
     /**
-     * Read all reviews of a video
+     * Read all reviews of a video, from the cache when possible, sharing the call to the service with the identical reads in progress
      *
-     * @param hash Hash of the video
-     * @return The list of all reviews of this video
+     * @param hash        Hash of the video
+     * @param ifNoneMatch ETag of the reviews already known by the client, or null
+     * @return The list of all reviews of this video, or 304 Not Modified without body when it matches the ETag
      */
-    public Iterable<Review> readReviewsOfVideo(String hash) {
-        return reviewsProxy.readReviewsOfVideo(hash);
+    public ResponseEntity<Iterable<Review>> readReviewsOfVideo(String hash, String ifNoneMatch) {
+        try {
+            return conditional(responseCache.get("video-reviews", hash, properties.getVideoReviewsCacheTtl(),
+                    () -> requestCoalescer.read("video-reviews", hash + ":" + ifNoneMatch,
+                            () -> reviewsProxy.readReviewsOfVideo(hash, ifNoneMatch))), ifNoneMatch);
+        } catch (FeignException e) {
+            if (e.status() == 304) return notModified(e);
+            else throw e;
+        }
     }
 
     /**
-     * Read the best reviewed videos
+     * Read the best reviewed videos, from the cache when possible
      *
      * @return The list of the best reviewed videos
      */
     public Iterable<Video> readBestVideos() {
-        return reviewsProxy.readBestVideos();
+        return responseCache.get("best-videos", "", properties.getBestVideosCacheTtl(), reviewsProxy::readBestVideos);
+    }
+
+    /**
+     * Read the state of the circuit breakers of the services called by the gateway
+     *
+     * @return The statistics of the circuit breakers
+     */
+    public Iterable<CircuitBreakerStatistics> readCircuitBreakers() {
+        return circuitBreakers.statistics();
+    }
+
+    /**
+     * Read the statistics of the response cache
+     *
+     * @return The hits, misses, hit rate, evictions and size of every cached route
+     */
+    public Iterable<ResponseCacheStatistics> readResponseCacheStatistics() {
+        return responseCache.statistics();
+    }
+
+    /**
+     * Read the statistics of the coalescing of identical reads
+     *
+     * @return The calls made, the reads coalesced and the calls in progress of every coalesced route
+     */
+    public Iterable<CoalescingStatistics> readCoalescingStatistics() {
+        return requestCoalescer.statistics();
+    }
+
+    /**
+     * Read the statistics of the pool of connections to the services
+     *
+     * @return The connections leased, pending and available of the whole pool, then of every instance
+     */
+    public Iterable<HttpClientPoolStatistics> readHttpClientPoolStatistics() {
+        return httpClientPool.statistics();
+    }
+
+    /**
+     * Answer a read conditionally, keeping only the ETag of the response of the service
+     *
+     * @param response    Response of the service, possibly cached
+     * @param ifNoneMatch ETags already known by the client, or null
+     * @return 304 Not Modified without body if the ETag of the response is known by the client, the response otherwise
+     */
+    private static <T> ResponseEntity<T> conditional(ResponseEntity<T> response, String ifNoneMatch) {
+        String etag = response.getHeaders().getETag();
+        if (etag == null) return ResponseEntity.ok(response.getBody());
+        if (matches(ifNoneMatch, etag)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        return ResponseEntity.ok().eTag(etag).body(response.getBody());
+    }
+
+    /**
+     * Forward a 304 Not Modified answer of a service
+     *
+     * @param e Exception thrown by Feign for the 304 answer
+     * @return 304 Not Modified without body, with the ETag given by the service
+     */
+    private static <T> ResponseEntity<T> notModified(FeignException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+        Collection<String> etags = e.responseHeaders().get(HttpHeaders.ETAG);
+        if (etags != null && !etags.isEmpty()) response.eTag(etags.iterator().next());
+        return response.build();
+    }
+
+    /**
+     * Check if an ETag is in an If-None-Match header, with the weak comparison used for conditional reads
+     *
+     * @param ifNoneMatch If-None-Match header, a list of ETags or *, or null
+     * @param etag        ETag of the current response
+     * @return true if the ETag matches, false otherwise
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if (candidate.equals("*") || candidate.equals(opaque)) return true;
+        }
+        return false;
     }
 
 }
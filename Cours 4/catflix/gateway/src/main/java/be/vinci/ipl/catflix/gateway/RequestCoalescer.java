@@ -0,0 +1,96 @@
+package be.vinci.ipl.catflix.gateway;
+
+import be.vinci.ipl.catflix.gateway.models.CoalescingStatistics;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first read calls the service,
+ * and the reads arriving while this call is in progress wait for it and share its result, or its exception.
+ */
+public class RequestCoalescer {
+
+    private static class Statistics {
+        private long calls = 0;
+        private long coalesced = 0;
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> statistics = new TreeMap<>();
+
+    /**
+     * Reads a resource, sharing the call to the service with the identical reads in progress
+     * @param route Name of the route, used for the statistics
+     * @param key   Key of the read within the route, identical reads having the same key
+     * @param call  Calls the service
+     * @return The result of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(String route, String key, Supplier<T> call) {
+        String fullKey = route + ":" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(fullKey, future);
+
+        if (existing != null) {
+            synchronized (this) {
+                statistics(route).coalesced++;
+            }
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        synchronized (this) {
+            statistics(route).calls++;
+        }
+        try {
+            T result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fullKey, future);
+        }
+    }
+
+    /**
+     * Stops sharing the calls in progress for a resource, because it changed: later reads call the service again
+     * @param route Name of the route
+     * @param key   Key of the resource within the route, prefix of the keys of its reads
+     */
+    public void invalidate(String route, String key) {
+        String prefix = route + ":" + key + ":";
+        inFlight.keySet().removeIf(fullKey -> fullKey.startsWith(prefix));
+    }
+
+    /**
+     * Reads the statistics of the coalescing
+     * @return The calls made, the reads coalesced and the calls in progress of every route
+     */
+    public synchronized List<CoalescingStatistics> statistics() {
+        Map<String, Integer> calling = new HashMap<>();
+        inFlight.keySet().forEach(key -> calling.merge(key.substring(0, key.indexOf(':')), 1, Integer::sum));
+
+        List<CoalescingStatistics> result = new ArrayList<>();
+        statistics.forEach((route, stats) -> {
+            long reads = stats.calls + stats.coalesced;
+            double coalescedRate = reads == 0 ? 0 : (double) stats.coalesced / reads;
+            result.add(new CoalescingStatistics(route, stats.calls, stats.coalesced, coalescedRate, calling.getOrDefault(route, 0)));
+        });
+        return result;
+    }
+
+    private Statistics statistics(String route) {
+        return statistics.computeIfAbsent(route, r -> new Statistics());
+    }
+
+}
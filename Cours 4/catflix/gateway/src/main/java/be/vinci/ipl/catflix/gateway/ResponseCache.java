@@ -0,0 +1,161 @@
+package be.vinci.ipl.catflix.gateway;
+
+import be.vinci.ipl.catflix.gateway.models.ResponseCacheStatistics;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the responses of the services, evicting the least recently used response when full
+ * and forgetting responses after the time to live of their route.
+ * Only successful responses are cached, errors are always forwarded to the service.
+ * A response read while its key is invalidated isn't cached, as it may have been read before the change.
+ */
+public class ResponseCache {
+
+    private record Entry(String route, Object value, long expiresAt) {
+    }
+
+    // A response being read from a service, stale when its key is invalidated meanwhile
+    private static class Load {
+        private final String route;
+        private final String fullKey;
+        private boolean stale = false;
+
+        private Load(String route, String fullKey) {
+            this.route = route;
+            this.fullKey = fullKey;
+        }
+    }
+
+    private static class Statistics {
+        private long hits = 0;
+        private long misses = 0;
+        private long evictions = 0;
+        private int size = 0;
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, Statistics> statistics = new TreeMap<>();
+    private final Set<Load> loads = new HashSet<>();
+    private final Map<String, Long> notCachedUntil = new HashMap<>(); // by route, in milliseconds since epoch
+
+    /**
+     * @param maxSize Maximum number of responses kept, for all routes
+     */
+    public ResponseCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= ResponseCache.this.maxSize) return false;
+                Statistics stats = statistics(eldest.getValue().route());
+                stats.evictions++;
+                stats.size--;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets a response, asking the service only when it isn't cached or has expired
+     * @param route  Name of the route, used for the statistics and to invalidate all its responses at once
+     * @param key    Key of the response within the route
+     * @param ttl    Time to live of the response, in milliseconds
+     * @param loader Asks the service for the response
+     * @return The response
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String route, String key, long ttl, Supplier<T> loader) {
+        String fullKey = route + ":" + key;
+        Load load;
+        synchronized (this) {
+            Statistics stats = statistics(route);
+            Entry entry = entries.get(fullKey);
+            if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(fullKey);
+                stats.evictions++;
+                stats.size--;
+                entry = null;
+            }
+            if (entry != null) {
+                stats.hits++;
+                return (T) entry.value();
+            }
+            stats.misses++;
+            load = new Load(route, fullKey);
+            loads.add(load);
+        }
+
+        T value;
+        try {
+            value = loader.get();
+        } finally {
+            synchronized (this) {
+                loads.remove(load);
+            }
+        }
+        synchronized (this) {
+            if (maxSize > 0 && ttl > 0 && !load.stale && System.currentTimeMillis() >= notCachedUntil.getOrDefault(route, 0L)) {
+                Entry previous = entries.put(fullKey, new Entry(route, value, System.currentTimeMillis() + ttl));
+                if (previous == null) statistics(route).size++;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Forgets a response, because the resource it contains changed
+     * @param route Name of the route
+     * @param key   Key of the response within the route
+     */
+    public synchronized void invalidate(String route, String key) {
+        String fullKey = route + ":" + key;
+        loads.forEach(load -> load.stale |= load.fullKey.equals(fullKey));
+        if (entries.remove(fullKey) != null) statistics(route).size--;
+    }
+
+    /**
+     * Forgets all responses of a route, because any of them may contain a resource that changed
+     * @param route Name of the route
+     */
+    public synchronized void invalidateRoute(String route) {
+        loads.forEach(load -> load.stale |= load.route.equals(route));
+        entries.values().removeIf(entry -> entry.route().equals(route));
+        statistics(route).size = 0;
+    }
+
+    /**
+     * Forgets all responses of some routes, and caches none of them for a while,
+     * as the services may still be changing them asynchronously
+     * @param routes     Names of the routes
+     * @param settleTime Time during which the responses of these routes aren't cached, in milliseconds
+     */
+    public synchronized void invalidateRoutes(Collection<String> routes, long settleTime) {
+        long until = System.currentTimeMillis() + settleTime;
+        for (String route : routes) {
+            invalidateRoute(route);
+            notCachedUntil.merge(route, until, Math::max);
+        }
+    }
+
+    /**
+     * Reads the statistics of the cache
+     * @return The hits, misses, hit rate, evictions and size of every route
+     */
+    public synchronized List<ResponseCacheStatistics> statistics() {
+        List<ResponseCacheStatistics> result = new ArrayList<>();
+        statistics.forEach((route, stats) -> {
+            long reads = stats.hits + stats.misses;
+            double hitRate = reads == 0 ? 0 : (double) stats.hits / reads;
+            result.add(new ResponseCacheStatistics(route, stats.hits, stats.misses, hitRate, stats.evictions, stats.size));
+        });
+        return result;
+    }
+
+    private Statistics statistics(String route) {
+        return statistics.computeIfAbsent(route, r -> new Statistics());
+    }
+
+}
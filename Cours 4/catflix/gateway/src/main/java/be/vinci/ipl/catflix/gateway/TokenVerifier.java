@@ -0,0 +1,105 @@
+package be.vinci.ipl.catflix.gateway;
+
+import be.vinci.ipl.catflix.gateway.data.AuthenticationProxy;
+import be.vinci.ipl.catflix.gateway.models.Revocation;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import feign.FeignException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class TokenVerifier {
+
+    // Revocations are read again from a little before the last one known, in case an earlier one was committed later
+    private static final long REFRESH_OVERLAP = 10000; // in milliseconds
+
+    private final AuthenticationProxy authenticationProxy;
+    private final JWTVerifier jwtVerifier;
+    private final long tokenLifetime;
+
+    // Times of revocation of the users, by pseudo, as read from the authentication service
+    private volatile Map<String, Long> revoked = null;
+    // Times of the revocations made through this gateway, kept until the authentication service returns them
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private long lastRevokedAt = 0;
+
+    public TokenVerifier(AuthenticationProxy authenticationProxy, AuthenticationProperties properties) {
+        this.authenticationProxy = authenticationProxy;
+        this.tokenLifetime = properties.getTokenLifetime();
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) this.jwtVerifier = null;
+        else this.jwtVerifier = JWT.require(Algorithm.HMAC512(properties.getSecret())).withIssuer("auth0")
+                .withClaimPresence("iat").withClaimPresence("exp").build();
+    }
+
+    /**
+     * Checks if tokens can be verified locally, that is if the secret is known and the revocations have been read
+     * @return true if tokens can be verified locally, false if they must be verified by the authentication service
+     */
+    public boolean isLocal() {
+        return jwtVerifier != null && revoked != null;
+    }
+
+    /**
+     * Verifies JWT token locally
+     * @param token The JWT token
+     * @return The pseudo of the user, or null if the token couldn't be verified, has expired or was issued before the user was deleted
+     */
+    public String verify(String token) {
+        try {
+            DecodedJWT decoded = jwtVerifier.verify(token);
+            String pseudo = decoded.getClaim("pseudo").asString();
+            if (pseudo == null) return null;
+            long issuedAt = decoded.getIssuedAt().getTime(); // rounded down to the second, so revoked when in doubt
+            if (revokes(revoked.get(pseudo), issuedAt) || revokes(pending.get(pseudo), issuedAt)) return null;
+            return pseudo;
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+    }
+
+    private static boolean revokes(Long revokedAt, long issuedAt) {
+        return revokedAt != null && issuedAt <= revokedAt;
+    }
+
+    /**
+     * Revokes the tokens of a user issued until now, without waiting for the authentication service to return the revocation
+     * @param pseudo The pseudo of the user
+     */
+    public void revoke(String pseudo) {
+        pending.put(pseudo, System.currentTimeMillis());
+    }
+
+    /**
+     * Reads the revocations made since the last refresh from the authentication service,
+     * and forgets those older than the lifetime of a token
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.gateway.revocations-refresh:5000}")
+    public void refreshRevocations() {
+        if (jwtVerifier == null) return;
+        long started = System.currentTimeMillis();
+        try {
+            Map<String, Long> current = revoked == null ? new ConcurrentHashMap<>() : revoked;
+            for (Revocation revocation : authenticationProxy.readRevocations(Math.max(0, lastRevokedAt - REFRESH_OVERLAP))) {
+                current.merge(revocation.getPseudo(), revocation.getRevokedAt(), Math::max);
+                // Returned by the authentication service, unless revoked here again after the refresh started
+                pending.computeIfPresent(revocation.getPseudo(), (pseudo, revokedAt) -> revokedAt < started ? null : revokedAt);
+                lastRevokedAt = Math.max(lastRevokedAt, revocation.getRevokedAt());
+            }
+            long expired = System.currentTimeMillis() - tokenLifetime;
+            current.values().removeIf(revokedAt -> revokedAt < expired);
+            pending.values().removeIf(revokedAt -> revokedAt < expired);
+            revoked = current;
+        } catch (FeignException e) {
+            // Keep the previous revocations, or keep verifying remotely if they were never read
+            System.err.println("Could not refresh revocations: " + e.getMessage());
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package be.vinci.ipl.catflix.gateway.data;
 
 import be.vinci.ipl.catflix.gateway.models.Credentials;
+import be.vinci.ipl.catflix.gateway.models.Revocation;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.*;
@@ -15,4 +16,7 @@ public interface AuthenticationProxy {
     @PostMapping("/authentication/verify")
     String verify(@RequestBody String token);
 
+    @GetMapping("/authentication/revocations")
+    Iterable<Revocation> readRevocations(@RequestParam long since);
+
 }
@@ -3,6 +3,8 @@ package be.vinci.ipl.catflix.gateway.data;
 import be.vinci.ipl.catflix.gateway.models.Review;
 import be.vinci.ipl.catflix.gateway.models.Video;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,7 +23,8 @@ public interface ReviewsProxy {
     Iterable<Review> readReviewsFromUser(@PathVariable String pseudo);
 
     @GetMapping("/reviews/videos/{hash}")
-    Iterable<Review> readReviewsOfVideo(@PathVariable String hash);
+    ResponseEntity<Iterable<Review>> readReviewsOfVideo(@PathVariable String hash,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @GetMapping("/reviews/best")
     Iterable<Video> readBestVideos();
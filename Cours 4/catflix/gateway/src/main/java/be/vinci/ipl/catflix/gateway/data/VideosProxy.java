@@ -1,7 +1,10 @@
 package be.vinci.ipl.catflix.gateway.data;
 
 import be.vinci.ipl.catflix.gateway.models.Video;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,10 +17,15 @@ public interface VideosProxy {
 
 
     @GetMapping("/videos")
-    Iterable<Video> readVideos();
+    ResponseEntity<Iterable<Video>> readVideos(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+    @GetMapping(value = "/videos", produces = "application/x-ndjson")
+    Response streamVideos(@RequestParam boolean stream);
 
     @GetMapping("/videos/{hash}")
-    Video readVideo(@PathVariable String hash);
+    ResponseEntity<Video> readVideo(@PathVariable String hash,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 
     @GetMapping("/videos/users/{pseudo}")
     Iterable<Video> readVideosFromAuthor(@PathVariable String pseudo);
@@ -0,0 +1,62 @@
+package be.vinci.ipl.catflix.gateway.httpclient;
+
+import be.vinci.ipl.catflix.gateway.models.HttpClientPoolStatistics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of keep-alive connections of the Apache HttpClient 5 client, shared by all Feign proxies.
+ * Closes the connections idle for too long, and reads how the pool is used.
+ * Does nothing when Feign uses another client, for instance the HTTP/2 one.
+ */
+@Component
+public class HttpClientPool {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final TimeValue idleTimeout;
+
+    /**
+     * @param connectionManager Connection manager created by Spring Cloud OpenFeign for Apache HttpClient 5
+     * @param idleTimeout       Time after which an idle connection is closed, in milliseconds
+     */
+    public HttpClientPool(ObjectProvider<HttpClientConnectionManager> connectionManager,
+                          @Value("${be.vinci.ipl.catflix.http-client.idle-timeout:30000}") long idleTimeout) {
+        this.connectionManager = connectionManager.getIfAvailable() instanceof PoolingHttpClientConnectionManager pooling ? pooling : null;
+        this.idleTimeout = TimeValue.ofMilliseconds(idleTimeout);
+    }
+
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.http-client.eviction-interval:5000}")
+    public void evictIdleConnections() {
+        if (connectionManager != null) connectionManager.closeIdle(idleTimeout);
+    }
+
+    /**
+     * Reads the use of the pool
+     * @return The statistics of the whole pool, then of every route, empty if Feign doesn't use Apache HttpClient 5
+     */
+    public List<HttpClientPoolStatistics> statistics() {
+        List<HttpClientPoolStatistics> result = new ArrayList<>();
+        if (connectionManager == null) return result;
+
+        result.add(statistics("*", connectionManager.getTotalStats()));
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            result.add(statistics(route.getTargetHost().toHostString(), connectionManager.getStats(route)));
+        }
+        return result;
+    }
+
+    private static HttpClientPoolStatistics statistics(String route, PoolStats stats) {
+        return new HttpClientPoolStatistics(route, stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+    }
+
+}
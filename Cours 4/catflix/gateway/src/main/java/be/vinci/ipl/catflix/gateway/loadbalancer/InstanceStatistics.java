@@ -0,0 +1,152 @@
+package be.vinci.ipl.catflix.gateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the latency (as an exponentially weighted moving average) and the number of requests in flight
+ * of every instance called through the load balancer, and ejects the instances that fail or respond abnormally slowly.
+ * The average covers all the endpoints of an instance, so a response is only a latency spike when it is also slower
+ * than an absolute minimum: endpoints slow by design, such as connections hashing a password, aren't spikes.
+ */
+@Component
+public class InstanceStatistics implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static class Statistics {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double latency = -1; // in milliseconds, -1 until the first response
+        private int consecutiveErrors = 0;
+        private int ejections = 0; // number of consecutive ejections, without success in between
+        private long ejectedUntil = 0; // in milliseconds since epoch
+    }
+
+    private final ConcurrentHashMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final double weight;
+    private final int maxConsecutiveErrors;
+    private final double latencySpikeFactor;
+    private final long latencySpikeMin;
+    private final long ejectionTime;
+    private final long maxEjectionTime;
+
+    /**
+     * @param weight               Weight of the latest response in the moving average, between 0 and 1
+     * @param maxConsecutiveErrors Number of consecutive errors or latency spikes after which an instance is ejected
+     * @param latencySpikeFactor   A response slower than this factor times the average latency counts as an error, 0 to disable
+     * @param latencySpikeMin      Minimum latency of a response counted as an error, in milliseconds
+     * @param ejectionTime         Time an instance is ejected the first time, in milliseconds, doubled at each new ejection
+     * @param maxEjectionTime      Maximum time an instance is ejected, in milliseconds
+     */
+    public InstanceStatistics(@Value("${be.vinci.ipl.catflix.load-balancer.ewma-weight:0.3}") double weight,
+                              @Value("${be.vinci.ipl.catflix.load-balancer.outliers.consecutive-errors:5}") int maxConsecutiveErrors,
+                              @Value("${be.vinci.ipl.catflix.load-balancer.outliers.latency-spike-factor:5}") double latencySpikeFactor,
+                              @Value("${be.vinci.ipl.catflix.load-balancer.outliers.latency-spike-min:1000}") long latencySpikeMin,
+                              @Value("${be.vinci.ipl.catflix.load-balancer.outliers.ejection-time:5000}") long ejectionTime,
+                              @Value("${be.vinci.ipl.catflix.load-balancer.outliers.max-ejection-time:60000}") long maxEjectionTime) {
+        this.weight = weight;
+        this.maxConsecutiveErrors = maxConsecutiveErrors;
+        this.latencySpikeFactor = latencySpikeFactor;
+        this.latencySpikeMin = latencySpikeMin;
+        this.ejectionTime = ejectionTime;
+        this.maxEjectionTime = maxEjectionTime;
+    }
+
+    /**
+     * Checks if an instance is ejected, that is if it should not receive requests for now
+     * @param instance The instance
+     * @return true if the instance is ejected, false otherwise
+     */
+    public boolean isEjected(ServiceInstance instance) {
+        Statistics stats = get(instance);
+        synchronized (stats) {
+            return stats.ejectedUntil > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Computes the cost of sending a request to an instance: its average latency multiplied by its requests in flight
+     * @param instance The instance
+     * @return The cost, lower is better
+     */
+    public double cost(ServiceInstance instance) {
+        Statistics stats = get(instance);
+        double latency;
+        synchronized (stats) {
+            latency = Math.max(stats.latency, 0);
+        }
+        return (latency + 1) * (stats.inFlight.get() + 1);
+    }
+
+    private Statistics get(ServiceInstance instance) {
+        return statistics.computeIfAbsent(instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort(), key -> new Statistics());
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) return;
+        request.getContext().setRequestStartTime(System.nanoTime());
+        get(lbResponse.getServer()).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) return;
+
+        Statistics stats = get(lbResponse.getServer());
+        stats.inFlight.decrementAndGet();
+
+        if (completionContext.status() != CompletionContext.Status.SUCCESS) {
+            onError(lbResponse.getServer(), stats);
+            return;
+        }
+        ResponseData response = completionContext.getClientResponse();
+        if (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError()) {
+            onError(lbResponse.getServer(), stats);
+            return;
+        }
+
+        long start = completionContext.getLoadBalancerRequest().getContext().getRequestStartTime();
+        double latency = (System.nanoTime() - start) / 1_000_000.0;
+        boolean spike;
+        synchronized (stats) {
+            spike = latencySpikeFactor > 0 && stats.latency > 0 && latency > latencySpikeFactor * stats.latency && latency > latencySpikeMin;
+            stats.latency = stats.latency < 0 ? latency : weight * latency + (1 - weight) * stats.latency;
+            if (!spike) {
+                stats.consecutiveErrors = 0;
+                stats.ejections = 0;
+            }
+        }
+        if (spike) onError(lbResponse.getServer(), stats);
+    }
+
+    private void onError(ServiceInstance instance, Statistics stats) {
+        synchronized (stats) {
+            stats.consecutiveErrors++;
+            if (stats.consecutiveErrors < maxConsecutiveErrors) return;
+
+            long duration = Math.min(ejectionTime << Math.min(stats.ejections, 20), maxEjectionTime);
+            stats.ejectedUntil = System.currentTimeMillis() + duration;
+            stats.ejections++;
+            // When the instance comes back, a single error ejects it again until a request succeeds
+            stats.consecutiveErrors = maxConsecutiveErrors - 1;
+            System.err.println("Ejecting " + instance.getServiceId() + " instance " + instance.getHost() + ":" + instance.getPort() + " for " + duration + " ms");
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package be.vinci.ipl.catflix.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Removes the ejected instances from the instances given by the discovery client.
+ * If all instances are ejected, they are all kept, as an ejected instance is still better than none.
+ */
+public class OutlierEjectingServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    private final InstanceStatistics statistics;
+
+    public OutlierEjectingServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, InstanceStatistics statistics) {
+        super(delegate);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return getDelegate().get().map(this::filter);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        return getDelegate().get(request).map(this::filter);
+    }
+
+    private List<ServiceInstance> filter(List<ServiceInstance> instances) {
+        List<ServiceInstance> healthy = instances.stream().filter(instance -> !statistics.isEjected(instance)).toList();
+        return healthy.isEmpty() ? instances : healthy;
+    }
+
+}
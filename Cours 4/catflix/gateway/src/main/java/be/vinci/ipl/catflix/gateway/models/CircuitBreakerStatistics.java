@@ -0,0 +1,20 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class CircuitBreakerStatistics {
+    private String service;
+    private String state;
+    private int callsInFlight;
+    private long successfulCalls;
+    private long failedCalls;
+    private long rejectedCalls; // too many concurrent calls
+    private long notPermittedCalls; // circuit open
+}
@@ -0,0 +1,18 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoalescingStatistics {
+    private String route;
+    private long calls; // calls made to the service
+    private long coalesced; // reads that shared a call already in progress
+    private double coalescedRate; // between 0 and 1
+    private int inFlight;
+}
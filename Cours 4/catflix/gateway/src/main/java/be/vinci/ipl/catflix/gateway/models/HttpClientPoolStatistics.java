@@ -0,0 +1,18 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class HttpClientPoolStatistics {
+    private String route; // host and port of an instance, or * for the whole pool
+    private int leased; // connections in use
+    private int pending; // requests waiting for a connection
+    private int available; // idle connections, kept alive for the next requests
+    private int max;
+}
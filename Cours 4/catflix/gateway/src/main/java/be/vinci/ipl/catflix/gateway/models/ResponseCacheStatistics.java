@@ -0,0 +1,19 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResponseCacheStatistics {
+    private String route;
+    private long hits;
+    private long misses;
+    private double hitRate; // between 0 and 1
+    private long evictions;
+    private int size;
+}
@@ -0,0 +1,12 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class Revocation {
+    private String pseudo;
+    private long revokedAt; // in milliseconds since epoch, the tokens issued until then are refused
+}
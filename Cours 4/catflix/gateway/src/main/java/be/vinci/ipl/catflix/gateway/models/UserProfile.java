@@ -0,0 +1,17 @@
+package be.vinci.ipl.catflix.gateway.models;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class UserProfile {
+    private User user;
+    private Iterable<Video> videos;
+    private Iterable<Review> reviews;
+    private List<String> missing = new ArrayList<>(); // parts that could not be read in time
+}
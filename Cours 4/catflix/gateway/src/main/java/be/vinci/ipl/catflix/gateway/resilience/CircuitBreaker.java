@@ -0,0 +1,172 @@
+package be.vinci.ipl.catflix.gateway.resilience;
+
+import be.vinci.ipl.catflix.gateway.exceptions.ServiceUnavailableException;
+import be.vinci.ipl.catflix.gateway.models.CircuitBreakerStatistics;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker and bulkhead of the calls to one service.
+ * The circuit opens when too many of the latest calls failed, and calls fail fast while it is open.
+ * After some time, a single trial call is let through: the circuit closes if it succeeds, or opens again if it fails.
+ * The number of concurrent calls is limited, so a slow service cannot block every thread of the gateway.
+ * A call is only recorded in the state it started in, so a slow call can't decide the outcome of a later trial.
+ */
+public class CircuitBreaker {
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    /**
+     * Permission to call the service, tagged with the state of the circuit when the call started
+     * @param generation Number of state changes of the circuit when the call started
+     */
+    public record Permit(long generation) {
+    }
+
+    private final String service;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDuration;
+
+    private final boolean[] window; // true for failed calls, used as a ring buffer
+    private int windowIndex = 0;
+    private int windowCalls = 0;
+    private int windowFailures = 0;
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean trialInProgress = false;
+    private long generation = 0; // incremented at each state change
+
+    private final AtomicLong successfulCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong notPermittedCalls = new AtomicLong();
+
+    /**
+     * @param service              Name of the service called
+     * @param maxConcurrentCalls   Maximum number of concurrent calls to the service
+     * @param windowSize           Number of latest calls considered to compute the failure rate
+     * @param minimumCalls         Minimum number of calls in the window before the circuit can open
+     * @param failureRateThreshold Failure rate from which the circuit opens, in percent
+     * @param openDuration         Time the circuit stays open before a trial call, in milliseconds
+     */
+    public CircuitBreaker(String service, int maxConcurrentCalls, int windowSize, int minimumCalls, int failureRateThreshold, long openDuration) {
+        this.service = service;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Asks permission to call the service. When granted, onSuccess or onFailure must be called once the answer is received,
+     * and release once the answer has been read
+     * @return The permission, to give to onSuccess or onFailure
+     * @throws ServiceUnavailableException when the circuit is open or too many calls are in progress
+     */
+    public Permit acquire() throws ServiceUnavailableException {
+        if (!bulkhead.tryAcquire()) {
+            rejectedCalls.incrementAndGet();
+            throw new ServiceUnavailableException();
+        }
+        Permit permit = permit();
+        if (permit == null) {
+            bulkhead.release();
+            notPermittedCalls.incrementAndGet();
+            throw new ServiceUnavailableException();
+        }
+        return permit;
+    }
+
+    /**
+     * Records a successful call, closing the circuit if it was a trial call
+     * @param permit The permission of the call
+     */
+    public void onSuccess(Permit permit) {
+        successfulCalls.incrementAndGet();
+        synchronized (this) {
+            if (permit.generation() != generation) return; // started before the circuit changed state
+            if (state == State.HALF_OPEN) close();
+            else record(false);
+        }
+    }
+
+    /**
+     * Records a failed call, opening the circuit if it was a trial call or if too many calls failed
+     * @param permit The permission of the call
+     */
+    public void onFailure(Permit permit) {
+        failedCalls.incrementAndGet();
+        synchronized (this) {
+            if (permit.generation() != generation) return; // started before the circuit changed state
+            if (state == State.HALF_OPEN) open();
+            else if (state == State.CLOSED) {
+                record(true);
+                if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) open();
+            }
+        }
+    }
+
+    /**
+     * Ends a call once its answer has been read, letting another call in
+     */
+    public void release() {
+        bulkhead.release();
+    }
+
+    /**
+     * Reads the state and counters of the circuit breaker
+     * @return The statistics of the circuit breaker
+     */
+    public synchronized CircuitBreakerStatistics statistics() {
+        return new CircuitBreakerStatistics(service, state.name(), maxConcurrentCalls - bulkhead.availablePermits(),
+                successfulCalls.get(), failedCalls.get(), rejectedCalls.get(), notPermittedCalls.get());
+    }
+
+    private synchronized Permit permit() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDuration) {
+            state = State.HALF_OPEN;
+            generation++;
+            trialInProgress = false;
+        }
+        if (state == State.OPEN) return null;
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress) return null;
+            trialInProgress = true;
+        }
+        return new Permit(generation);
+    }
+
+    private void record(boolean failed) {
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) windowFailures--;
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) windowFailures++;
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        if (state != State.OPEN) System.err.println("Opening the circuit of " + service);
+        state = State.OPEN;
+        generation++;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void close() {
+        System.err.println("Closing the circuit of " + service);
+        state = State.CLOSED;
+        generation++;
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+
+}
@@ -0,0 +1,22 @@
+package be.vinci.ipl.catflix.gateway.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.circuit-breaker")
+public class CircuitBreakerProperties {
+    private int maxConcurrentCalls = 20;
+    private Map<String, Integer> clientMaxConcurrentCalls = new HashMap<>(); // overrides maxConcurrentCalls per service
+    private int windowSize = 20; // number of latest calls considered
+    private int minimumCalls = 10; // before the failure rate is considered
+    private int failureRateThreshold = 50; // in percent
+    private long openDuration = 10000; // in milliseconds
+}
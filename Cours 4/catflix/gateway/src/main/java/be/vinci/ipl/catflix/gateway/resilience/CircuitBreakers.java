@@ -0,0 +1,136 @@
+package be.vinci.ipl.catflix.gateway.resilience;
+
+import be.vinci.ipl.catflix.gateway.models.CircuitBreakerStatistics;
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps the HTTP client of every Feign proxy in the circuit breaker of the service it calls.
+ * Server errors, timeouts and connection failures count as failures; client errors (4xx) are normal answers,
+ * and so is 503 Service Unavailable, returned on purpose by a service shedding load: counted as a failure,
+ * a burst of connections refused by the authentication service would open its circuit and fail every token verification too.
+ * A call holds its place in the bulkhead until its body is closed, so streams and large bodies are limited too.
+ */
+@Component
+public class CircuitBreakers implements Capability {
+
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final CircuitBreakerProperties properties;
+
+    public CircuitBreakers(CircuitBreakerProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> execute(client, request, options);
+    }
+
+    /**
+     * Reads the state and counters of the circuit breaker of every service called so far
+     * @return The statistics of the circuit breakers, ordered by service
+     */
+    public List<CircuitBreakerStatistics> statistics() {
+        return breakers.values().stream()
+                .map(CircuitBreaker::statistics)
+                .sorted(Comparator.comparing(CircuitBreakerStatistics::getService))
+                .toList();
+    }
+
+    private Response execute(Client client, Request request, Request.Options options) throws IOException {
+        // Before load balancing, the host of the URL is the name of the service
+        CircuitBreaker breaker = get(URI.create(request.url()).getHost());
+        CircuitBreaker.Permit permit = breaker.acquire(); // throws ServiceUnavailableException
+
+        Response response;
+        try {
+            response = client.execute(request, options);
+        } catch (IOException | RuntimeException e) {
+            breaker.onFailure(permit);
+            breaker.release();
+            throw e;
+        }
+        if (response.status() >= 500 && response.status() != 503) breaker.onFailure(permit);
+        else breaker.onSuccess(permit);
+
+        if (response.body() == null) {
+            breaker.release();
+            return response;
+        }
+        return response.toBuilder().body(new ReleasingBody(response.body(), breaker)).build();
+    }
+
+    /**
+     * Body of a response, releasing the place of its call in the bulkhead once closed
+     */
+    private static class ReleasingBody implements Response.Body {
+
+        private final Response.Body body;
+        private final CircuitBreaker breaker;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        ReleasingBody(Response.Body body, CircuitBreaker breaker) {
+            this.body = body;
+            this.breaker = breaker;
+        }
+
+        @Override
+        public Integer length() {
+            return body.length();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return body.isRepeatable();
+        }
+
+        @Override
+        public InputStream asInputStream() throws IOException {
+            return body.asInputStream();
+        }
+
+        @Override
+        public Reader asReader() throws IOException {
+            return body.asReader(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Reader asReader(Charset charset) throws IOException {
+            return body.asReader(charset);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                body.close();
+            } finally {
+                if (released.compareAndSet(false, true)) breaker.release();
+            }
+        }
+
+    }
+
+    private CircuitBreaker get(String service) {
+        return breakers.computeIfAbsent(service, name -> new CircuitBreaker(name,
+                properties.getClientMaxConcurrentCalls().getOrDefault(name, properties.getMaxConcurrentCalls()),
+                properties.getWindowSize(),
+                properties.getMinimumCalls(),
+                properties.getFailureRateThreshold(),
+                properties.getOpenDuration()));
+    }
+
+}
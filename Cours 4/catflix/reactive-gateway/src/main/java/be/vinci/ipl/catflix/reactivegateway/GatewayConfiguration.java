@@ -0,0 +1,22 @@
+package be.vinci.ipl.catflix.reactivegateway;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class GatewayConfiguration {
+
+    /**
+     * Builder of the non-blocking clients of the services, resolving the name of a service with Eureka
+     * and balancing the load between its instances
+     * @return The builder, to clone before configuring it
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+
+}
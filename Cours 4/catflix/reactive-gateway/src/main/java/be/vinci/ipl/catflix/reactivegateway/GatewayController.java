@@ -0,0 +1,158 @@
+package be.vinci.ipl.catflix.reactivegateway;
+
+import be.vinci.ipl.catflix.reactivegateway.models.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+@RestController
+public class GatewayController {
+
+    private final GatewayService service;
+
+    public GatewayController(GatewayService service) {
+        this.service = service;
+    }
+
+
+    @PostMapping("/auth")
+    public Mono<String> connect(@RequestBody Credentials credentials) {
+        return service.connect(credentials); // errors with BadRequestException, UnauthorizedException & ServiceUnavailableException
+    }
+
+
+    @PostMapping("/users/{pseudo}")
+    public Mono<ResponseEntity<Void>> createUser(@PathVariable String pseudo, @RequestBody UserWithCredentials user) {
+        if (!Objects.equals(user.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+
+        return service.createUser(user) // errors with BadRequestException & ConflictException
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)));
+    }
+
+    @GetMapping("/users/{pseudo}")
+    public Mono<User> readUser(@PathVariable String pseudo) {
+        return service.readUser(pseudo); // errors with NotFoundException
+    }
+
+    @PutMapping("/users/{pseudo}")
+    public Mono<Void> updateUser(@PathVariable String pseudo, @RequestBody UserWithCredentials user, @RequestHeader("Authorization") String token) {
+        if (!Objects.equals(user.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+
+        return service.verify(token, pseudo) // errors with UnauthorizedException & ForbiddenException
+                .then(service.updateUser(user)); // errors with BadRequestException & NotFoundException
+    }
+
+    @DeleteMapping("/users/{pseudo}")
+    public Mono<Void> deleteUser(@PathVariable String pseudo, @RequestHeader("Authorization") String token) {
+        return service.verify(token, pseudo) // errors with UnauthorizedException & ForbiddenException
+                .then(service.deleteUser(pseudo)); // errors with NotFoundException
+    }
+
+
+    @GetMapping("/users/{pseudo}/videos")
+    public Flux<Video> readUserVideos(@PathVariable String pseudo) {
+        return service.readVideosFromUser(pseudo);
+    }
+
+    @GetMapping("/users/{pseudo}/reviews")
+    public Flux<Review> readUserReviews(@PathVariable String pseudo) {
+        return service.readReviewsFromUser(pseudo);
+    }
+
+    @GetMapping("/users/{pseudo}/profile")
+    public Mono<UserProfile> readUserProfile(@PathVariable String pseudo) {
+        return service.readProfile(pseudo); // errors with NotFoundException
+    }
+
+
+    @GetMapping("/videos")
+    public Flux<Video> readVideos(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after) {
+        return service.readVideos(limit, after); // errors with BadRequestException
+    }
+
+    @GetMapping(value = "/videos", params = "stream", produces = "application/x-ndjson")
+    public Flux<Video> streamVideos() {
+        return service.streamVideos();
+    }
+
+
+    @GetMapping("/videos/best")
+    public Flux<Video> readBestVideos() {
+        return service.readBestVideos();
+    }
+
+
+    @PostMapping("/videos/{hash}")
+    public Mono<ResponseEntity<Void>> createVideo(@PathVariable String hash, @RequestBody Video video, @RequestHeader("Authorization") String token) {
+        if (!Objects.equals(video.getHash(), hash)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+
+        return service.verify(token, video.getAuthor()) // errors with UnauthorizedException & ForbiddenException
+                .then(service.createVideo(video)) // errors with BadRequestException & ConflictException
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)));
+    }
+
+    @GetMapping("/videos/{hash}")
+    public Mono<Video> readVideo(@PathVariable String hash) {
+        return service.readVideo(hash); // errors with NotFoundException
+    }
+
+    @PutMapping("/videos/{hash}")
+    public Mono<Void> updateVideo(@PathVariable String hash, @RequestBody Video video, @RequestHeader("Authorization") String token) {
+        if (!Objects.equals(video.getHash(), hash)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+
+        return service.verify(token, video.getAuthor()) // errors with UnauthorizedException & ForbiddenException
+                .then(service.updateVideo(video)); // errors with BadRequestException & NotFoundException
+    }
+
+    @DeleteMapping("/videos/{hash}")
+    public Mono<Void> deleteVideo(@PathVariable String hash, @RequestHeader("Authorization") String token) {
+        return service.readVideo(hash) // errors with NotFoundException
+                .flatMap(video -> service.verify(token, video.getAuthor())) // errors with UnauthorizedException & ForbiddenException
+                .then(service.deleteVideo(hash)); // errors with NotFoundException
+    }
+
+
+    @GetMapping("/videos/{hash}/reviews")
+    public Flux<Review> readVideoReviews(@PathVariable String hash) {
+        return service.readReviewsOfVideo(hash);
+    }
+
+
+    @PostMapping("/reviews/users/{pseudo}/videos/{hash}")
+    public Mono<ResponseEntity<Void>> createReview(@PathVariable String pseudo, @PathVariable String hash, @RequestBody Review review, @RequestHeader("Authorization") String token) {
+        if (!Objects.equals(review.getPseudo(), pseudo) || !Objects.equals(review.getHash(), hash)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        }
+
+        return service.verify(token, pseudo) // errors with UnauthorizedException & ForbiddenException
+                .then(service.createReview(review)) // errors with BadRequestException & ConflictException
+                .then(Mono.just(new ResponseEntity<>(HttpStatus.CREATED)));
+    }
+
+    @GetMapping("/reviews/users/{pseudo}/videos/{hash}")
+    public Mono<Review> readReview(@PathVariable String pseudo, @PathVariable String hash) {
+        return service.readReview(pseudo, hash); // errors with NotFoundException
+    }
+
+    @PutMapping("/reviews/users/{pseudo}/videos/{hash}")
+    public Mono<Void> updateReview(@PathVariable String pseudo, @PathVariable String hash, @RequestBody Review review, @RequestHeader("Authorization") String token) {
+        if (!Objects.equals(review.getPseudo(), pseudo) || !Objects.equals(review.getHash(), hash)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        }
+
+        return service.verify(token, pseudo) // errors with UnauthorizedException & ForbiddenException
+                .then(service.updateReview(review)); // errors with BadRequestException & NotFoundException
+    }
+
+    @DeleteMapping("/reviews/users/{pseudo}/videos/{hash}")
+    public Mono<Void> deleteReview(@PathVariable String pseudo, @PathVariable String hash, @RequestHeader("Authorization") String token) {
+        return service.verify(token, pseudo) // errors with UnauthorizedException & ForbiddenException
+                .then(service.deleteReview(pseudo, hash)); // errors with NotFoundException
+    }
+
+}
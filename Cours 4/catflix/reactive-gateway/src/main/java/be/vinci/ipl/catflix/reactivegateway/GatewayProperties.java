@@ -0,0 +1,14 @@
+package be.vinci.ipl.catflix.reactivegateway;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.gateway")
+public class GatewayProperties {
+    private long profileTimeout = 1000; // in milliseconds
+}
@@ -0,0 +1,350 @@
+package be.vinci.ipl.catflix.reactivegateway;
+
+import be.vinci.ipl.catflix.reactivegateway.data.AuthenticationProxy;
+import be.vinci.ipl.catflix.reactivegateway.data.ReviewsProxy;
+import be.vinci.ipl.catflix.reactivegateway.data.UsersProxy;
+import be.vinci.ipl.catflix.reactivegateway.data.VideosProxy;
+import be.vinci.ipl.catflix.reactivegateway.exceptions.*;
+import be.vinci.ipl.catflix.reactivegateway.models.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class GatewayService {
+
+    private final AuthenticationProxy authenticationProxy;
+    private final ReviewsProxy reviewsProxy;
+    private final UsersProxy usersProxy;
+    private final VideosProxy videosProxy;
+    private final Duration profileTimeout;
+
+    public GatewayService(AuthenticationProxy authenticationProxy, ReviewsProxy reviewsProxy, UsersProxy usersProxy, VideosProxy videosProxy,
+                          GatewayProperties properties) {
+        this.authenticationProxy = authenticationProxy;
+        this.reviewsProxy = reviewsProxy;
+        this.usersProxy = usersProxy;
+        this.videosProxy = videosProxy;
+        this.profileTimeout = Duration.ofMillis(properties.getProfileTimeout());
+    }
+
+    /**
+     * Get connection token from credentials
+     *
+     * @param credentials Credentials of the user
+     * @return Connection token
+     * @throws BadRequestException   when the credentials are invalid
+     * @throws UnauthorizedException       when the credentials are incorrect
+     * @throws ServiceUnavailableException when too many passwords are waiting to be checked
+     */
+    public Mono<String> connect(Credentials credentials) throws BadRequestException, UnauthorizedException, ServiceUnavailableException {
+        return authenticationProxy.connect(credentials).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 401) return new UnauthorizedException();
+            else if (e.getStatusCode().value() == 503) return new ServiceUnavailableException();
+            else return e;
+        });
+    }
+
+    /**
+     * Get user pseudo from connection token
+     *
+     * @param token Connection token
+     * @throws UnauthorizedException when the credentials are incorrect
+     * @throws ForbiddenException    when the user pseudo is not the expected one
+     */
+    public Mono<Void> verify(String token, String expectedPseudo) throws UnauthorizedException, ForbiddenException {
+        return authenticationProxy.verify(token)
+                .onErrorMap(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode().value() == 401) return new UnauthorizedException();
+                    else return e;
+                })
+                .filter(userPseudo -> userPseudo.equals(expectedPseudo))
+                .switchIfEmpty(Mono.error(ForbiddenException::new))
+                .then();
+    }
+
+    /**
+     * Create user
+     *
+     * @param user User to create with credentials
+     * @throws BadRequestException When the user is not valid
+     * @throws ConflictException   When the user already exists
+     */
+    public Mono<Void> createUser(UserWithCredentials user) throws BadRequestException, ConflictException {
+        return usersProxy.createUser(user.getPseudo(), user).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 409) return new ConflictException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read user information
+     *
+     * @param pseudo Pseudo of the user
+     * @return User information
+     * @throws NotFoundException when the user could not be found
+     */
+    public Mono<User> readUser(String pseudo) throws NotFoundException {
+        return usersProxy.readUser(pseudo).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read user information, videos and reviews at once, calling the services concurrently
+     *
+     * @param pseudo Pseudo of the user
+     * @return User profile, with the parts that could not be read in time listed as missing
+     * @throws NotFoundException when the user could not be found
+     */
+    public Mono<UserProfile> readProfile(String pseudo) throws NotFoundException {
+        return Mono.zip(
+                part(readUser(pseudo), "user"),
+                part(readVideosFromUser(pseudo).collectList(), "videos"),
+                part(readReviewsFromUser(pseudo).collectList(), "reviews")
+        ).map(parts -> {
+            UserProfile profile = new UserProfile();
+            profile.setUser(parts.getT1().orElse(null));
+            profile.setVideos(parts.getT2().orElse(null));
+            profile.setReviews(parts.getT3().orElse(null));
+            if (parts.getT1().isEmpty()) profile.getMissing().add("user");
+            if (parts.getT2().isEmpty()) profile.getMissing().add("videos");
+            if (parts.getT3().isEmpty()) profile.getMissing().add("reviews");
+            return profile;
+        });
+    }
+
+    /**
+     * Read a part of a profile until the profile timeout
+     *
+     * @param read Read of the part
+     * @param part Name of the part being read
+     * @return The part, or empty if the read failed or didn't finish in time
+     * @throws NotFoundException when the read failed because the resource could not be found
+     */
+    private <T> Mono<Optional<T>> part(Mono<T> read, String part) throws NotFoundException {
+        return read.map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .timeout(profileTimeout)
+                .onErrorResume(e -> !(e instanceof NotFoundException), e -> {
+                    if (!(e instanceof TimeoutException)) System.err.println("Could not read " + part + ": " + e);
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    /**
+     * Update user
+     *
+     * @param user User to create with credentials
+     * @throws BadRequestException When the user is not valid
+     * @throws NotFoundException   When the user couldn't be found
+     */
+    public Mono<Void> updateUser(UserWithCredentials user) throws BadRequestException, NotFoundException {
+        return usersProxy.updateUser(user.getPseudo(), user).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Delete user
+     *
+     * @param pseudo Pseudo of the user
+     * @throws NotFoundException when the user could not be found
+     */
+    public Mono<Void> deleteUser(String pseudo) throws NotFoundException {
+        return usersProxy.deleteUser(pseudo).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read all videos, or a page of videos ordered by hash
+     *
+     * @param limit Maximum number of videos in the page, or null with after null to read all videos
+     * @param after Hash of the last video of the previous page, or null for the first page
+     * @return the videos
+     * @throws BadRequestException when the limit is invalid
+     */
+    public Flux<Video> readVideos(Integer limit, String after) throws BadRequestException {
+        return videosProxy.readVideos(limit, after).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else return e;
+        });
+    }
+
+    /**
+     * Stream all videos, without reading them all in memory
+     *
+     * @return the stream of videos, forwarded as they are read from the videos service
+     */
+    public Flux<Video> streamVideos() {
+        return videosProxy.streamVideos();
+    }
+
+    /**
+     * Create a new video
+     *
+     * @param video the video to create
+     * @throws BadRequestException when the video is not valid
+     * @throws ConflictException   when a video already exists for this hash
+     */
+    public Mono<Void> createVideo(Video video) throws BadRequestException, ConflictException {
+        return videosProxy.createVideo(video.getHash(), video).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 409) return new ConflictException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read a video
+     *
+     * @param hash Hash of the video
+     * @return The video
+     * @throws NotFoundException when the video couldn't be found
+     */
+    public Mono<Video> readVideo(String hash) throws NotFoundException {
+        return videosProxy.readVideo(hash).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Update a video
+     *
+     * @param video the video to update
+     * @throws BadRequestException when the video is invalid
+     * @throws NotFoundException   when no video could be found
+     */
+    public Mono<Void> updateVideo(Video video) throws BadRequestException, NotFoundException {
+        return videosProxy.updateVideo(video.getHash(), video).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Delete a video
+     *
+     * @param hash Hash of the video
+     * @throws NotFoundException when the video could not be found
+     */
+    public Mono<Void> deleteVideo(String hash) throws NotFoundException {
+        return videosProxy.deleteVideo(hash).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read all videos from a user
+     *
+     * @param pseudo Pseudo of the user
+     * @return List of all videos from this user
+     */
+    public Flux<Video> readVideosFromUser(String pseudo) {
+        return videosProxy.readVideosFromAuthor(pseudo);
+    }
+
+    /**
+     * Create a review
+     *
+     * @param review Review to create
+     * @throws BadRequestException when the review is invalid
+     * @throws ConflictException   when a review already exists for this user and video
+     */
+    public Mono<Void> createReview(Review review) throws BadRequestException, ConflictException {
+        return reviewsProxy.createReview(review.getPseudo(), review.getHash(), review).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 409) return new ConflictException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read a review
+     *
+     * @param pseudo Pseudo of the user
+     * @param hash   Hash of the video
+     * @return The review corresponding to this user and video
+     * @throws NotFoundException when the review could not be found
+     */
+    public Mono<Review> readReview(String pseudo, String hash) throws NotFoundException {
+        return reviewsProxy.readReview(pseudo, hash).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Update a review
+     *
+     * @param review Review to update
+     * @throws BadRequestException when the review is invalid
+     * @throws NotFoundException   when the review could not be found
+     */
+    public Mono<Void> updateReview(Review review) throws BadRequestException, NotFoundException {
+        return reviewsProxy.updateReview(review.getPseudo(), review.getHash(), review).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 400) return new BadRequestException();
+            else if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Delete a review
+     *
+     * @param pseudo Pseudo of the user
+     * @param hash   Hash of the video
+     * @throws NotFoundException when the review could not be found
+     */
+    public Mono<Void> deleteReview(String pseudo, String hash) throws NotFoundException {
+        return reviewsProxy.deleteReview(pseudo, hash).onErrorMap(WebClientResponseException.class, e -> {
+            if (e.getStatusCode().value() == 404) return new NotFoundException();
+            else return e;
+        });
+    }
+
+    /**
+     * Read all reviews from a user
+     *
+     * @param pseudo Pseudo of the user
+     * @return The list of all reviews from this user
+     */
+    public Flux<Review> readReviewsFromUser(String pseudo) {
+        return reviewsProxy.readReviewsFromUser(pseudo);
+    }
+
+    /**
+     * Read all reviews of a video
+     *
+     * @param hash Hash of the video
+     * @return The list of all reviews of this video
+     */
+    public Flux<Review> readReviewsOfVideo(String hash) {
+        return reviewsProxy.readReviewsOfVideo(hash);
+    }
+
+    /**
+     * Read the best reviewed videos
+     *
+     * @return The list of the best reviewed videos
+     */
+    public Flux<Video> readBestVideos() {
+        return reviewsProxy.readBestVideos();
+    }
+
+}
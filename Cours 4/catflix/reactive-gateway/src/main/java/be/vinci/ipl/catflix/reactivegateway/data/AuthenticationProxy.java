@@ -0,0 +1,27 @@
+package be.vinci.ipl.catflix.reactivegateway.data;
+
+import be.vinci.ipl.catflix.reactivegateway.models.Credentials;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class AuthenticationProxy {
+
+    private final WebClient client;
+
+    public AuthenticationProxy(WebClient.Builder builder) {
+        this.client = builder.clone().baseUrl("http://authentication").build();
+    }
+
+    public Mono<String> connect(Credentials credentials) {
+        return client.post().uri("/authentication/connect").bodyValue(credentials).retrieve().bodyToMono(String.class);
+    }
+
+    public Mono<String> verify(String token) {
+        return client.post().uri("/authentication/verify").contentType(MediaType.TEXT_PLAIN).bodyValue(token)
+                .retrieve().bodyToMono(String.class);
+    }
+
+}
@@ -0,0 +1,52 @@
+package be.vinci.ipl.catflix.reactivegateway.data;
+
+import be.vinci.ipl.catflix.reactivegateway.models.Review;
+import be.vinci.ipl.catflix.reactivegateway.models.Video;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class ReviewsProxy {
+
+    private final WebClient client;
+
+    public ReviewsProxy(WebClient.Builder builder) {
+        this.client = builder.clone().baseUrl("http://reviews").build();
+    }
+
+    public Mono<Void> createReview(String pseudo, String hash, Review review) {
+        return client.post().uri("/reviews/users/{pseudo}/videos/{hash}", pseudo, hash).bodyValue(review)
+                .retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Mono<Review> readReview(String pseudo, String hash) {
+        return client.get().uri("/reviews/users/{pseudo}/videos/{hash}", pseudo, hash).retrieve().bodyToMono(Review.class);
+    }
+
+    public Flux<Review> readReviewsFromUser(String pseudo) {
+        return client.get().uri("/reviews/users/{pseudo}", pseudo).retrieve().bodyToFlux(Review.class);
+    }
+
+    public Flux<Review> readReviewsOfVideo(String hash) {
+        return client.get().uri("/reviews/videos/{hash}", hash).retrieve().bodyToFlux(Review.class);
+    }
+
+    public Flux<Video> readBestVideos() {
+        return client.get().uri("/reviews/best").retrieve().bodyToFlux(Video.class);
+    }
+
+
+    public Mono<Void> updateReview(String pseudo, String hash, Review review) {
+        return client.put().uri("/reviews/users/{pseudo}/videos/{hash}", pseudo, hash).bodyValue(review)
+                .retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Mono<Void> deleteReview(String pseudo, String hash) {
+        return client.delete().uri("/reviews/users/{pseudo}/videos/{hash}", pseudo, hash).retrieve().bodyToMono(Void.class);
+    }
+
+}
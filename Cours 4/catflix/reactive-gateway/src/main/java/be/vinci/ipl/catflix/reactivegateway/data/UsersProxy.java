@@ -0,0 +1,37 @@
+package be.vinci.ipl.catflix.reactivegateway.data;
+
+import be.vinci.ipl.catflix.reactivegateway.models.User;
+import be.vinci.ipl.catflix.reactivegateway.models.UserWithCredentials;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class UsersProxy {
+
+    private final WebClient client;
+
+    public UsersProxy(WebClient.Builder builder) {
+        this.client = builder.clone().baseUrl("http://users").build();
+    }
+
+    public Mono<Void> createUser(String pseudo, UserWithCredentials user) {
+        return client.post().uri("/users/{pseudo}", pseudo).bodyValue(user).retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Mono<User> readUser(String pseudo) {
+        return client.get().uri("/users/{pseudo}", pseudo).retrieve().bodyToMono(User.class);
+    }
+
+
+    public Mono<Void> updateUser(String pseudo, UserWithCredentials user) {
+        return client.put().uri("/users/{pseudo}", pseudo).bodyValue(user).retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Mono<Void> deleteUser(String pseudo) {
+        return client.delete().uri("/users/{pseudo}", pseudo).retrieve().bodyToMono(Void.class);
+    }
+
+}
@@ -0,0 +1,56 @@
+package be.vinci.ipl.catflix.reactivegateway.data;
+
+import be.vinci.ipl.catflix.reactivegateway.models.Video;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+@Repository
+public class VideosProxy {
+
+    private final WebClient client;
+
+    public VideosProxy(WebClient.Builder builder) {
+        this.client = builder.clone().baseUrl("http://videos").build();
+    }
+
+    public Mono<Void> createVideo(String hash, Video video) {
+        return client.post().uri("/videos/{hash}", hash).bodyValue(video).retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Flux<Video> readVideos(Integer limit, String after) {
+        return client.get().uri(uri -> uri.path("/videos")
+                        .queryParamIfPresent("limit", Optional.ofNullable(limit))
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .build())
+                .retrieve().bodyToFlux(Video.class);
+    }
+
+    public Flux<Video> streamVideos() {
+        return client.get().uri("/videos?stream").accept(MediaType.APPLICATION_NDJSON).retrieve().bodyToFlux(Video.class);
+    }
+
+    public Mono<Video> readVideo(String hash) {
+        return client.get().uri("/videos/{hash}", hash).retrieve().bodyToMono(Video.class);
+    }
+
+    public Flux<Video> readVideosFromAuthor(String pseudo) {
+        return client.get().uri("/videos/users/{pseudo}", pseudo).retrieve().bodyToFlux(Video.class);
+    }
+
+
+    public Mono<Void> updateVideo(String hash, Video video) {
+        return client.put().uri("/videos/{hash}", hash).bodyValue(video).retrieve().bodyToMono(Void.class);
+    }
+
+
+    public Mono<Void> deleteVideo(String hash) {
+        return client.delete().uri("/videos/{hash}", hash).retrieve().bodyToMono(Void.class);
+    }
+
+}
@@ -0,0 +1,11 @@
+package be.vinci.ipl.catflix.reactivegateway.models;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class Credentials {
+    private String pseudo;
+    private String password;
+}
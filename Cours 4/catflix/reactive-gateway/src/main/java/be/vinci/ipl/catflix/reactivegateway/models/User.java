@@ -0,0 +1,13 @@
+package be.vinci.ipl.catflix.reactivegateway.models;
+
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class User {
+    private String pseudo;
+    private String firstname;
+    private String lastname;
+}
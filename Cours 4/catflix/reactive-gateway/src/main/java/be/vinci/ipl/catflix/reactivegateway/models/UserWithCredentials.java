@@ -0,0 +1,15 @@
+package be.vinci.ipl.catflix.reactivegateway.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class UserWithCredentials {
+    private String pseudo;
+    private String firstname;
+    private String lastname;
+    private String password;
+}
@@ -0,0 +1,97 @@
+package be.vinci.ipl.catflix.reviews;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of the existence of resources owned by other services, evicting the least recently used key when full.
+ * Existing and missing resources are remembered for different times to live. Every instance reads the deletions
+ * from the services owning the resources periodically and invalidates their entries, not only the instance told about them.
+ */
+public class ExistenceCache {
+
+    // Deletions are read again from a little before the last one known, in case an earlier one was committed later
+    private static final long DELETIONS_OVERLAP = 10000; // in milliseconds
+
+    // invalidation is the number of the last invalidation of the key, an invalidated key being kept as an expired entry
+    private record Entry(boolean exists, long expiresAt, long invalidation) {
+    }
+
+    private final int maxSize;
+    private final long ttl;
+    private final long negativeTtl;
+    private final LinkedHashMap<String, Entry> entries;
+    private long invalidations = 0; // to drop the answers of the services asked before the invalidation of their key
+    private long lastDeletion = 0; // time of the last deletion read from the service, in milliseconds since epoch
+
+    /**
+     * @param maxSize     Maximum number of keys kept
+     * @param ttl         Time to live of an existing resource, in milliseconds
+     * @param negativeTtl Time to live of a missing resource, in milliseconds
+     */
+    public ExistenceCache(int maxSize, long ttl, long negativeTtl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ExistenceCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Checks if a resource exists, asking its service only when unknown or expired
+     * @param key    Key of the resource
+     * @param loader Asks the service if the resource exists
+     * @return true if the resource exists, false otherwise
+     */
+    public boolean exists(String key, Predicate<String> loader) {
+        long loadInvalidations;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() >= System.currentTimeMillis()) return entry.exists();
+            loadInvalidations = invalidations;
+        }
+
+        boolean exists = loader.test(key);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            long invalidation = entry == null ? 0 : entry.invalidation();
+            if (maxSize > 0 && invalidation <= loadInvalidations) {
+                entries.put(key, new Entry(exists, System.currentTimeMillis() + (exists ? ttl : negativeTtl), invalidation));
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * Forgets a resource, for instance because it was deleted
+     * @param key Key of the resource
+     */
+    public synchronized void invalidate(String key) {
+        invalidations++;
+        entries.put(key, new Entry(false, 0, invalidations));
+    }
+
+    /**
+     * Gives the time from which to read the deletions from the service owning the resources
+     * @return The time, in milliseconds since epoch, or 0 to read all deletions
+     */
+    public synchronized long deletionsSince() {
+        return Math.max(0, lastDeletion - DELETIONS_OVERLAP);
+    }
+
+    /**
+     * Forgets a resource deleted through any instance, as read from its service
+     * @param key       Key of the resource
+     * @param deletedAt Time of the deletion, in milliseconds since epoch
+     */
+    public synchronized void deleted(String key, long deletedAt) {
+        invalidate(key);
+        lastDeletion = Math.max(lastDeletion, deletedAt);
+    }
+
+}
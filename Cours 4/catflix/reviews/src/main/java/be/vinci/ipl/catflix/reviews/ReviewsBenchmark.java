@@ -0,0 +1,140 @@
+package be.vinci.ipl.catflix.reviews;
+
+import be.vinci.ipl.catflix.reviews.repositories.ReviewsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark of the review queries as the reviews table grows, run with the benchmark profile:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=benchmark -Dspring-boot.run.jvmArguments=-Xmx6g
+ * For each size, fills the table with reviews, each user having 20 reviews and each video 10 reviews,
+ * then prints the mean latency of each query and how the database runs it.
+ * The lookups are drawn from a fixed seed, so two runs measure the same queries. The application stops at the end.
+ * With be.vinci.ipl.catflix.reviews.benchmark-indexes=false, the indexes of the reviews table are dropped first,
+ * measuring the unindexed baseline; they are only created again with the schema, so not in the persistent profile.
+ */
+@Component
+@Profile("benchmark")
+public class ReviewsBenchmark implements CommandLineRunner {
+
+    private static final int REVIEWS_PER_USER = 20;
+    private static final int REVIEWS_PER_VIDEO = 10;
+    private static final int BATCH_SIZE = 10000;
+    private static final int WARM_UP = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReviewsRepository repository;
+    private final ConfigurableApplicationContext context;
+    private final List<Integer> sizes;
+    private final int lookups;
+    private final boolean indexes;
+
+    /**
+     * @param sizes   Numbers of reviews in the table, measured one after the other
+     * @param lookups Number of queries measured for each query and size
+     * @param indexes false to drop the indexes of the reviews table before measuring
+     */
+    public ReviewsBenchmark(JdbcTemplate jdbcTemplate, ReviewsRepository repository, ConfigurableApplicationContext context,
+                            @Value("${be.vinci.ipl.catflix.reviews.benchmark-sizes:10000,1000000,10000000}") List<Integer> sizes,
+                            @Value("${be.vinci.ipl.catflix.reviews.benchmark-lookups:1000}") int lookups,
+                            @Value("${be.vinci.ipl.catflix.reviews.benchmark-indexes:true}") boolean indexes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.context = context;
+        this.sizes = sizes;
+        this.lookups = lookups;
+        this.indexes = indexes;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!indexes) {
+            jdbcTemplate.execute("alter table reviews drop constraint if exists reviews_pseudo_hash");
+            jdbcTemplate.execute("drop index if exists reviews_hash");
+            System.out.println("--- Without indexes on reviews");
+        }
+        for (int size : sizes) {
+            long start = System.nanoTime();
+            fill(size);
+            System.out.printf("--- %d reviews, inserted in %d ms%n", size, (System.nanoTime() - start) / 1_000_000);
+
+            int users = Math.max(1, size / REVIEWS_PER_USER);
+            int videos = Math.max(1, size / REVIEWS_PER_VIDEO);
+            Random random = new Random(size);
+            measure("findByPseudo", () -> repository.findByPseudo(pseudo(random.nextInt(users))));
+            measure("findByHash", () -> repository.findByHash(hash(random.nextInt(size), size)));
+            measure("existsByPseudoAndHash", () -> {
+                int review = random.nextInt(size);
+                repository.existsByPseudoAndHash(pseudo(review / REVIEWS_PER_USER), hash(review, size));
+            });
+            measure("findByPseudoAndHash", () -> {
+                int review = random.nextInt(size);
+                repository.findByPseudoAndHash(pseudo(review / REVIEWS_PER_USER), hash(review, size));
+            });
+
+            explain("select * from reviews where pseudo = 'user0'");
+            explain("select * from reviews where hash = '" + hash(0, size) + "'");
+            explain("select * from reviews where pseudo = 'user0' and hash = '" + hash(0, size) + "'");
+            System.out.printf("(%d users, %d videos)%n", users, videos);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * Replaces the reviews with generated ones, and their rating aggregates
+     * @param size Number of reviews to generate
+     */
+    private void fill(int size) {
+        jdbcTemplate.execute("truncate table reviews");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int review = 0; review < size; review++) {
+            batch.add(new Object[]{pseudo(review / REVIEWS_PER_USER), hash(review, size), review % 11, "Benchmark review"});
+            if (batch.size() == BATCH_SIZE || review == size - 1) {
+                jdbcTemplate.batchUpdate("insert into reviews (pseudo, hash, rating, comment) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.execute("truncate table video_ratings");
+        jdbcTemplate.execute("insert into video_ratings (hash, rating_sum, rating_count, average) " +
+                "select hash, sum(rating), count(rating), avg(cast(rating as double precision)) from reviews group by hash");
+        jdbcTemplate.update("update data_revision set revision = revision + 1"); // written without the service, ETags changed
+    }
+
+    private static String pseudo(int user) {
+        return "user" + user;
+    }
+
+    /**
+     * Hash of the video of a generated review, the reviews of a user being on different videos
+     * @param review Number of the review
+     * @param size   Number of reviews generated
+     * @return The hash of the video
+     */
+    private static String hash(int review, int size) {
+        int group = Math.max(1, size / REVIEWS_PER_VIDEO / REVIEWS_PER_USER);
+        int user = review / REVIEWS_PER_USER;
+        return "video" + ((review % REVIEWS_PER_USER) * group + user % group);
+    }
+
+    private void measure(String query, Runnable lookup) {
+        for (int i = 0; i < WARM_UP; i++) lookup.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) lookup.run();
+        System.out.printf("%-24s %10.1f µs%n", query, (System.nanoTime() - start) / 1000.0 / lookups);
+    }
+
+    private void explain(String query) {
+        String plan = String.join(" ", jdbcTemplate.queryForList("explain " + query, String.class));
+        System.out.println(plan.replaceAll("\\s+", " "));
+    }
+
+}
@@ -1,12 +1,16 @@
 package be.vinci.ipl.catflix.reviews;
 
 import be.vinci.ipl.catflix.reviews.models.Review;
+import be.vinci.ipl.catflix.reviews.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.reviews.models.Video;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Objects;
 
 @RestController
@@ -28,14 +32,20 @@ public class ReviewsController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         }
 
-        boolean created = service.createOne(review);
+        boolean created;
+        try {
+            created = service.createOne(review);
+        } catch (DataIntegrityViolationException e) {
+            created = false; // created concurrently, and refused by the unique constraint
+        }
         if (!created) throw new ResponseStatusException(HttpStatus.CONFLICT);
         else return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
 
     @GetMapping("/reviews/users/{pseudo}/videos/{hash}")
-    public Review readOne(@PathVariable String pseudo, @PathVariable String hash) {
+    public Review readOne(@PathVariable String pseudo, @PathVariable String hash, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null; // 304 Not Modified, without reading the review
         Review review = service.readOne(pseudo, hash);
 
         if (review == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
@@ -43,18 +53,20 @@ public class ReviewsController {
     }
 
     @GetMapping("/reviews/users/{pseudo}")
-    public Iterable<Review> readFromUser(@PathVariable String pseudo) {
+    public Iterable<Review> readFromUser(@PathVariable String pseudo, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null;
         return service.readFromUser(pseudo);
     }
 
     @GetMapping("/reviews/videos/{hash}")
-    public Iterable<Review> readFromVideo(@PathVariable String hash) {
+    public Iterable<Review> readFromVideo(@PathVariable String hash, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null;
         return service.readFromVideo(hash);
     }
 
     @GetMapping("/reviews/best")
     public Iterable<Video> readBest() {
-        return service.best3Videos();
+        return service.bestVideos();
     }
 
 
@@ -89,4 +101,15 @@ public class ReviewsController {
         service.deleteFromVideo(hash);
     }
 
+    @DeleteMapping("/reviews/videos")
+    public void deleteFromVideos(@RequestParam List<String> hashes) {
+        service.deleteFromVideos(hashes);
+    }
+
+
+    @GetMapping("/reviews/second-level-cache/statistics")
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return service.readSecondLevelCacheStatistics();
+    }
+
 }
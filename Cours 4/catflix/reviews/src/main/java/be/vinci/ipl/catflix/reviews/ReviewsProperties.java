@@ -0,0 +1,19 @@
+package be.vinci.ipl.catflix.reviews;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.reviews")
+public class ReviewsProperties {
+    private int bestVideosCount = 3;
+    private boolean rebuildRatings = true; // at startup, false when the aggregates are stored with the reviews
+    private int existenceCacheSize = 10000;
+    private long existenceCacheTtl = 60000; // in milliseconds, the deletions read from the services invalidating it sooner
+    private long existenceCacheNegativeTtl = 5000; // in milliseconds
+    private long deletionsRefresh = 5000; // in milliseconds
+}
@@ -1,73 +1,186 @@
 package be.vinci.ipl.catflix.reviews;
 
+import be.vinci.ipl.catflix.reviews.cache.SecondLevelCache;
 import be.vinci.ipl.catflix.reviews.models.Review;
+import be.vinci.ipl.catflix.reviews.models.SecondLevelCacheStatistics;
+import be.vinci.ipl.catflix.reviews.models.UserDeletion;
 import be.vinci.ipl.catflix.reviews.models.Video;
+import be.vinci.ipl.catflix.reviews.models.VideoDeletion;
+import be.vinci.ipl.catflix.reviews.models.VideoRating;
 import be.vinci.ipl.catflix.reviews.repositories.ReviewsRepository;
 import be.vinci.ipl.catflix.reviews.repositories.UsersProxy;
+import be.vinci.ipl.catflix.reviews.repositories.VideoRatingsRepository;
 import be.vinci.ipl.catflix.reviews.repositories.VideosProxy;
 import feign.FeignException;
 import jakarta.persistence.Tuple;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.StreamSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReviewsService {
 
     private final ReviewsRepository repository;
+    private final VideoRatingsRepository ratingsRepository;
     private final VideosProxy videosProxy;
     private final UsersProxy usersProxy;
+    private final SecondLevelCache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersion dataVersion;
+    private final int bestVideosCount;
+    private final boolean rebuildRatings;
+    private final ExistenceCache usersCache;
+    private final ExistenceCache videosCache;
 
-    public ReviewsService(ReviewsRepository repository, VideosProxy videosProxy, UsersProxy usersProxy) {
+    public ReviewsService(ReviewsRepository repository, VideoRatingsRepository ratingsRepository, VideosProxy videosProxy, UsersProxy usersProxy,
+                          SecondLevelCache secondLevelCache, TransactionTemplate transactionTemplate, DataVersion dataVersion,
+                          ReviewsProperties properties) {
         this.repository = repository;
+        this.ratingsRepository = ratingsRepository;
         this.videosProxy = videosProxy;
         this.usersProxy = usersProxy;
+        this.secondLevelCache = secondLevelCache;
+        this.transactionTemplate = transactionTemplate;
+        this.dataVersion = dataVersion;
+        this.bestVideosCount = properties.getBestVideosCount();
+        this.rebuildRatings = properties.isRebuildRatings();
+        this.usersCache = new ExistenceCache(properties.getExistenceCacheSize(), properties.getExistenceCacheTtl(), properties.getExistenceCacheNegativeTtl());
+        this.videosCache = new ExistenceCache(properties.getExistenceCacheSize(), properties.getExistenceCacheTtl(), properties.getExistenceCacheNegativeTtl());
     }
 
     /**
-     * Checks if a user exists in the users service
-     * @param pseudo Pseudo of the user
-     * @return true if the user exists, false otherwise
+     * Rebuilds the rating aggregates of all videos from the reviews, as reviews may have been imported directly,
+     * unless the aggregates are stored with the reviews
      */
-    public boolean userNotExists(String pseudo) {
-        try {
-            usersProxy.readOne(pseudo);
-            return false;
-        } catch (FeignException.FeignClientException e) {
-            if (e.status() == 404) return true;
-            else throw e;
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildRatings() {
+        if (!rebuildRatings) return;
+        ratingsRepository.deleteAll();
+        for (Tuple rating : repository.findRatings()) {
+            long sum = ((Number) rating.get("ratingSum")).longValue();
+            long count = ((Number) rating.get("ratingCount")).longValue();
+            ratingsRepository.save(new VideoRating((String) rating.get("videoHash"), sum, count, (double) sum / count));
         }
     }
 
     /**
-     * Checks if a video exists in the videos service
+     * Adds ratings to the aggregate of a video, removing the aggregate when no rating is left,
+     * and inserting it for the first ratings of the video
      * @param hash Hash of the video
-     * @return true if the video exists, false otherwise
+     * @param sum Sum of the ratings to add, negative to remove ratings
+     * @param count Number of ratings to add, negative to remove ratings
      */
-    public boolean videoNotExists(String hash) {
+    private void rate(String hash, long sum, long count) {
+        if (ratingsRepository.add(hash, sum, count) > 0) {
+            if (count < 0) ratingsRepository.deleteEmpty(List.of(hash));
+        } else if (count > 0) {
+            ratingsRepository.insert(new VideoRating(hash, sum, count, (double) sum / count));
+        }
+    }
+
+    /**
+     * Forgets the users and videos deleted through any instance of their services since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.reviews.deletions-refresh:5000}")
+    public void refreshDeletions() {
+        // The resources remembered meanwhile are forgotten after their time to live when a service can't be reached
+        try {
+            for (UserDeletion deletion : usersProxy.readDeletions(usersCache.deletionsSince())) {
+                usersCache.deleted(deletion.getPseudo(), deletion.getDeletedAt());
+            }
+        } catch (FeignException e) {
+            System.err.println("Could not refresh user deletions: " + e.getMessage());
+        }
         try {
-            videosProxy.readOne(hash);
-            return false;
-        } catch (FeignException.FeignClientException e) {
-            if (e.status() == 404) return true;
-            else throw e;
+            for (VideoDeletion deletion : videosProxy.readDeletions(videosCache.deletionsSince())) {
+                videosCache.deleted(deletion.getHash(), deletion.getDeletedAt());
+            }
+        } catch (FeignException e) {
+            System.err.println("Could not refresh video deletions: " + e.getMessage());
         }
     }
 
+    /**
+     * Checks if a user exists in the users service, remembering the answer for a while
+     * @param pseudo Pseudo of the user
+     * @return true if the user does not exist, false otherwise
+     */
+    public boolean userNotExists(String pseudo) {
+        return !usersCache.exists(pseudo, key -> {
+            try {
+                usersProxy.existsOne(key);
+                return true;
+            } catch (FeignException.FeignClientException e) {
+                if (e.status() == 404) return false;
+                else throw e;
+            }
+        });
+    }
 
     /**
-     * Creates a review in repository
+     * Checks if a video exists in the videos service, remembering the answer for a while
+     * @param hash Hash of the video
+     * @return true if the video does not exist, false otherwise
+     */
+    public boolean videoNotExists(String hash) {
+        return !videosCache.exists(hash, key -> {
+            try {
+                videosProxy.existsOne(key);
+                return true;
+            } catch (FeignException.FeignClientException e) {
+                if (e.status() == 404) return false;
+                else throw e;
+            }
+        });
+    }
+
+
+    /**
+     * Creates a review in repository, with its rating
      * @param review Review to create
      * @return true if the review was created, false if another review exists with the same pseudo and hash
+     * @throws DataIntegrityViolationException when the review was created concurrently twice
      */
-    public boolean createOne(Review review) {
-        if (repository.existsByPseudoAndHash(review.getPseudo(), review.getHash())) return false;
-        repository.save(review);
+    public boolean createOne(Review review) throws DataIntegrityViolationException {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> insert(review)));
+        } catch (DataIntegrityViolationException e) {
+            // Another first review of the video inserted its aggregate concurrently, and it is now updated instead,
+            // or the same review was created concurrently, and it is now found
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> insert(review)));
+        }
+    }
+
+    private boolean insert(Review review) {
+        if (repository.insert(review) == 0) return false;
+        rate(review.getHash(), review.getRating(), 1);
+        dataVersion.changed();
         return true;
     }
 
 
+    /**
+     * Gives the ETag of the current reviews, changed by every write
+     * @return The ETag, to read before the reviews
+     */
+    public String etag() {
+        return dataVersion.etag();
+    }
+
+
     /**
      * Reads a review in repository
      * @param pseudo Pseudo of the user reviewing
@@ -97,21 +210,23 @@ public class ReviewsService {
     }
 
     /**
-     * Finds the 3 best videos by average ranking of users
-     * @return the list of videos
+     * Finds the best videos by average ranking of users, using the precomputed rating aggregates
+     * and reading all the videos in a single call to the videos service
+     * @return the list of videos, best first
      */
-    public Iterable<Video> best3Videos() {
-        Iterable<Tuple> bests = repository.findBest();
-        return StreamSupport.stream(bests.spliterator(), false)
-                .limit(3)
-                .map(best -> {
-                    try {
-                        String hash = (String) best.get("videoHash");
-                        return videosProxy.readOne(hash);
-                    } catch (FeignException.FeignClientException e) {
-                        System.err.println("Consistency error: no such hash: " + best.get("videoHash"));
-                        return null;
-                    }
+    public Iterable<Video> bestVideos() {
+        List<String> hashes = ratingsRepository.findByOrderByAverageDesc(Limit.of(bestVideosCount)).stream()
+                .map(VideoRating::getHash)
+                .toList();
+        if (hashes.isEmpty()) return List.of();
+
+        Map<String, Video> videos = videosProxy.readMany(hashes).stream()
+                .collect(Collectors.toMap(Video::getHash, Function.identity()));
+        return hashes.stream()
+                .map(hash -> {
+                    Video video = videos.get(hash);
+                    if (video == null) System.err.println("Consistency error: no such hash: " + hash);
+                    return video;
                 })
                 .filter(Objects::nonNull)
                 .toList();
@@ -123,12 +238,16 @@ public class ReviewsService {
      * @param newReview New values of the review
      * @return true if the review was updated, or false if the review couldn't be found
      */
+    @Transactional
     public boolean updateOne(Review newReview) {
-        Review oldReview = repository.findByPseudoAndHash(newReview.getPseudo(), newReview.getHash()).orElse(null);
-        if (oldReview == null) return false;
+        Review review = repository.findForUpdateByPseudoAndHash(newReview.getPseudo(), newReview.getHash()).orElse(null);
+        if (review == null) return false;
 
-        newReview.setId(oldReview.getId());
-        repository.save(newReview);
+        int ratingDifference = newReview.getRating() - review.getRating();
+        review.setRating(newReview.getRating()); // written in a single update at commit, which also updates the second-level cache
+        review.setComment(newReview.getComment());
+        rate(newReview.getHash(), ratingDifference, 0);
+        dataVersion.changed();
         return true;
     }
 
@@ -139,9 +258,13 @@ public class ReviewsService {
      * @param hash   Hash of the video being reviewed
      * @return true if the review was deleted, or false if the review couldn't be found
      */
+    @Transactional
     public boolean deleteOne(String pseudo, String hash) {
-        if (!repository.existsByPseudoAndHash(pseudo, hash)) return false;
+        Review review = repository.findForUpdateByPseudoAndHash(pseudo, hash).orElse(null);
+        if (review == null) return false;
         repository.deleteByPseudoAndHash(pseudo, hash);
+        rate(hash, -review.getRating(), -1);
+        dataVersion.changed();
         return true;
     }
 
@@ -149,16 +272,50 @@ public class ReviewsService {
      * Deletes all reviews from a user
      * @param pseudo Pseudo of the user
      */
+    @Transactional
     public void deleteFromUser(String pseudo) {
+        usersCache.invalidate(pseudo); // called when the user is deleted
+        List<String> hashes = new ArrayList<>();
+        for (Review review : repository.findForUpdateByPseudo(pseudo)) {
+            ratingsRepository.add(review.getHash(), -review.getRating(), -1);
+            hashes.add(review.getHash());
+        }
+        if (!hashes.isEmpty()) ratingsRepository.deleteEmpty(hashes);
         repository.deleteByPseudo(pseudo);
+        dataVersion.changed();
     }
 
     /**
      * Deletes all reviews of a video
      * @param hash Hash of the video
      */
+    @Transactional
     public void deleteFromVideo(String hash) {
+        videosCache.invalidate(hash); // called when the video is deleted
         repository.deleteByHash(hash);
+        ratingsRepository.deleteById(hash);
+        dataVersion.changed();
+    }
+
+    /**
+     * Deletes all reviews of several videos, in a single statement
+     * @param hashes Hashes of the videos
+     */
+    @Transactional
+    public void deleteFromVideos(List<String> hashes) {
+        if (hashes.isEmpty()) return;
+        hashes.forEach(videosCache::invalidate); // called when the videos are deleted
+        repository.deleteByHashes(hashes);
+        ratingsRepository.deleteByHashes(hashes);
+        dataVersion.changed();
+    }
+
+    /**
+     * Reads the statistics of the Hibernate second-level cache
+     * @return The hits, misses and puts of the entity and query caches, and the number of statements sent to the database
+     */
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return secondLevelCache.statistics();
     }
 
 }
@@ -0,0 +1,37 @@
+package be.vinci.ipl.catflix.reviews.cache;
+
+import be.vinci.ipl.catflix.reviews.models.SecondLevelCacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access to the Hibernate second-level cache, whether it is enabled or not
+ */
+@Component
+public class SecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory,
+                            @Value("${be.vinci.ipl.catflix.second-level-cache.enabled:false}") boolean enabled) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Reads the statistics of the cache, and the number of statements sent to the database
+     * @return The statistics, all zero when the cache is disabled
+     */
+    public SecondLevelCacheStatistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return new SecondLevelCacheStatistics(enabled,
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(),
+                statistics.getPrepareStatementCount());
+    }
+
+}
@@ -0,0 +1,37 @@
+package be.vinci.ipl.catflix.reviews.httpclient;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of keep-alive connections of the Apache HttpClient 5 client, shared by all Feign proxies.
+ * Closes the connections idle for too long.
+ * Does nothing when Feign uses another client, for instance the HTTP/2 one.
+ */
+@Component
+public class HttpClientPool {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final TimeValue idleTimeout;
+
+    /**
+     * @param connectionManager Connection manager created by Spring Cloud OpenFeign for Apache HttpClient 5
+     * @param idleTimeout       Time after which an idle connection is closed, in milliseconds
+     */
+    public HttpClientPool(ObjectProvider<HttpClientConnectionManager> connectionManager,
+                          @Value("${be.vinci.ipl.catflix.http-client.idle-timeout:30000}") long idleTimeout) {
+        this.connectionManager = connectionManager.getIfAvailable() instanceof PoolingHttpClientConnectionManager pooling ? pooling : null;
+        this.idleTimeout = TimeValue.ofMilliseconds(idleTimeout);
+    }
+
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.http-client.eviction-interval:5000}")
+    public void evictIdleConnections() {
+        if (connectionManager != null) connectionManager.closeIdle(idleTimeout);
+    }
+
+}
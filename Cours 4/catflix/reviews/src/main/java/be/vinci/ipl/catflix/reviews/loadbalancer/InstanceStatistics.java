@@ -0,0 +1,85 @@
+package be.vinci.ipl.catflix.reviews.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.*;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the latency (as an exponentially weighted moving average) and the number of requests in flight
+ * of every instance called through the load balancer
+ */
+@Component
+public class InstanceStatistics implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static class Statistics {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double latency = -1; // in milliseconds, -1 until the first response
+    }
+
+    private final ConcurrentHashMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final double weight;
+
+    /**
+     * @param weight Weight of the latest response in the moving average, between 0 and 1
+     */
+    public InstanceStatistics(@Value("${be.vinci.ipl.catflix.load-balancer.ewma-weight:0.3}") double weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Computes the cost of sending a request to an instance: its average latency multiplied by its requests in flight
+     * @param instance The instance
+     * @return The cost, lower is better
+     */
+    public double cost(ServiceInstance instance) {
+        Statistics stats = get(instance);
+        double latency;
+        synchronized (stats) {
+            latency = Math.max(stats.latency, 0);
+        }
+        return (latency + 1) * (stats.inFlight.get() + 1);
+    }
+
+    private Statistics get(ServiceInstance instance) {
+        return statistics.computeIfAbsent(instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort(), key -> new Statistics());
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) return;
+        request.getContext().setRequestStartTime(System.nanoTime());
+        get(lbResponse.getServer()).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) return;
+
+        Statistics stats = get(lbResponse.getServer());
+        stats.inFlight.decrementAndGet();
+        if (completionContext.status() != CompletionContext.Status.SUCCESS) return;
+
+        long start = completionContext.getLoadBalancerRequest().getContext().getRequestStartTime();
+        double latency = (System.nanoTime() - start) / 1_000_000.0;
+        synchronized (stats) {
+            stats.latency = stats.latency < 0 ? latency : weight * latency + (1 - weight) * stats.latency;
+        }
+    }
+
+}
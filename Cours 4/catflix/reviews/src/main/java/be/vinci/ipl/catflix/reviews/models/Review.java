@@ -3,12 +3,18 @@ package be.vinci.ipl.catflix.reviews.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
 @ToString
 @NoArgsConstructor
 @Entity(name = "reviews")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(uniqueConstraints = @UniqueConstraint(name = "reviews_pseudo_hash", columnNames = {"pseudo", "hash"}),
+        indexes = @Index(name = "reviews_hash", columnList = "hash")) // pseudo alone is served by the unique constraint
 public class Review {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,15 @@
+package be.vinci.ipl.catflix.reviews.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class UserDeletion {
+    private String pseudo;
+    private long deletedAt; // in milliseconds since epoch
+}
@@ -0,0 +1,15 @@
+package be.vinci.ipl.catflix.reviews.models;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class VideoDeletion {
+    private String hash;
+    private long deletedAt; // in milliseconds since epoch
+}
@@ -0,0 +1,26 @@
+package be.vinci.ipl.catflix.reviews.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "video_ratings")
+@Table(indexes = @Index(name = "video_ratings_average", columnList = "average"))
+public class VideoRating {
+    @Id
+    @Column(nullable = false)
+    private String hash;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(nullable = false)
+    private double average;
+}
@@ -1,12 +1,19 @@
 package be.vinci.ipl.catflix.reviews.repositories;
 
 import be.vinci.ipl.catflix.reviews.models.Review;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.persistence.Tuple;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -14,22 +21,57 @@ public interface ReviewsRepository extends CrudRepository<Review, Long> {
 
     boolean existsByPseudoAndHash(String pseudo, String hash);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Review> findByPseudoAndHash(String pseudo, String hash);
 
+    /**
+     * Reads a review to change it, from the database rather than the second-level cache,
+     * and locks it until the end of the transaction so its rating can't change meanwhile
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Review> findForUpdateByPseudoAndHash(String pseudo, String hash);
+
     @Transactional
     void deleteByPseudoAndHash(String pseudo, String hash);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Iterable<Review> findByPseudo(String pseudo);
 
+    /**
+     * Reads the reviews of a user to delete them, from the database rather than the second-level cache,
+     * and locks them until the end of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Iterable<Review> findForUpdateByPseudo(String pseudo);
+
     @Transactional
     void deleteByPseudo(String pseudo);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Iterable<Review> findByHash(String hash);
 
     @Transactional
     void deleteByHash(String hash);
 
-    @Query("select hash as videoHash, avg(rating) as avgRating from reviews group by videoHash order by avgRating desc")
-    Iterable<Tuple> findBest();
+    @Modifying
+    @Transactional
+    @Query("delete from reviews r where r.hash in :hashes")
+    void deleteByHashes(Collection<String> hashes);
+
+    /**
+     * Inserts a review unless the user already reviewed the video, in a single statement
+     * @return the number of reviews inserted, 0 if the user already reviewed the video
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reviews")) // only invalidates the cache of this table
+    @Query(value = "insert into reviews (pseudo, hash, rating, comment) " +
+            "select cast(:#{#review.pseudo} as varchar), cast(:#{#review.hash} as varchar), " +
+            "cast(:#{#review.rating} as int), cast(:#{#review.comment} as varchar) " +
+            "where not exists (select 1 from reviews where pseudo = :#{#review.pseudo} and hash = :#{#review.hash})", nativeQuery = true)
+    int insert(Review review);
+
+    @Query("select hash as videoHash, sum(rating) as ratingSum, count(rating) as ratingCount from reviews group by hash")
+    Iterable<Tuple> findRatings();
 
 }
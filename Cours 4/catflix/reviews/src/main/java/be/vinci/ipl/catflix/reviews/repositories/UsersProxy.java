@@ -1,16 +1,28 @@
 package be.vinci.ipl.catflix.reviews.repositories;
 
 import be.vinci.ipl.catflix.reviews.models.User;
+import be.vinci.ipl.catflix.reviews.models.UserDeletion;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @Repository
 @FeignClient(name = "users")
 public interface UsersProxy {
 
+    @RequestMapping(value = "/users/{pseudo}", method = RequestMethod.HEAD)
+    void existsOne(@PathVariable String pseudo);
+
     @GetMapping("/users/{pseudo}")
     User readOne(@PathVariable String pseudo);
 
+    @GetMapping("/users/deletions")
+    List<UserDeletion> readDeletions(@RequestParam long since);
+
 }
@@ -0,0 +1,58 @@
+package be.vinci.ipl.catflix.reviews.repositories;
+
+import be.vinci.ipl.catflix.reviews.models.VideoRating;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VideoRatingsRepository extends CrudRepository<VideoRating, String> {
+
+    List<VideoRating> findByOrderByAverageDesc(Limit limit);
+
+    /**
+     * Adds ratings to the aggregate of a video, in a single statement to avoid lost updates
+     * @return the number of aggregates updated, 0 if the video has no aggregate yet
+     */
+    @Modifying
+    @Transactional
+    @Query("update video_ratings r set r.ratingSum = r.ratingSum + :sum, r.ratingCount = r.ratingCount + :count, " +
+            "r.average = case when r.ratingCount + :count > 0 then 1.0 * (r.ratingSum + :sum) / (r.ratingCount + :count) else 0 end " +
+            "where r.hash = :hash")
+    int add(String hash, long sum, long count);
+
+    /**
+     * Inserts the aggregate of a video, without reading it first as a merge would, so an aggregate inserted concurrently
+     * is refused by the primary key instead of being overwritten
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "video_ratings")) // only invalidates the cache of this table
+    @Query(value = "insert into video_ratings (hash, rating_sum, rating_count, average) " +
+            "values (:#{#rating.hash}, :#{#rating.ratingSum}, :#{#rating.ratingCount}, :#{#rating.average})", nativeQuery = true)
+    void insert(VideoRating rating);
+
+    /**
+     * Removes the aggregates of videos left without ratings, looking up the aggregates by hash
+     * so the whole table isn't scanned
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from video_ratings r where r.hash in :hashes and r.ratingCount <= 0")
+    void deleteEmpty(Collection<String> hashes);
+
+    @Modifying
+    @Transactional
+    @Query("delete from video_ratings r where r.hash in :hashes")
+    void deleteByHashes(Collection<String> hashes);
+
+}
@@ -1,16 +1,33 @@
 package be.vinci.ipl.catflix.reviews.repositories;
 
 import be.vinci.ipl.catflix.reviews.models.Video;
+import be.vinci.ipl.catflix.reviews.models.VideoDeletion;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @Repository
 @FeignClient(name = "videos")
 public interface VideosProxy {
 
+    @RequestMapping(value = "/videos/{hash}", method = RequestMethod.HEAD)
+    void existsOne(@PathVariable String hash);
+
     @GetMapping("/videos/{hash}")
     Video readOne(@PathVariable String hash);
 
+    @PostMapping("/videos/batch")
+    List<Video> readMany(@RequestBody List<String> hashes);
+
+    @GetMapping("/videos/deletions")
+    List<VideoDeletion> readDeletions(@RequestParam long since);
+
 }
@@ -0,0 +1,17 @@
+CREATE TABLE reviews (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    pseudo  VARCHAR(255) NOT NULL,
+    hash    VARCHAR(255) NOT NULL,
+    rating  INTEGER      NOT NULL,
+    comment VARCHAR(255),
+    CONSTRAINT reviews_pseudo_hash UNIQUE (pseudo, hash)
+);
+CREATE INDEX reviews_hash ON reviews (hash);
+
+CREATE TABLE video_ratings (
+    hash         VARCHAR(255)     NOT NULL PRIMARY KEY,
+    rating_sum   BIGINT           NOT NULL,
+    rating_count BIGINT           NOT NULL,
+    average      DOUBLE PRECISION NOT NULL
+);
+CREATE INDEX video_ratings_average ON video_ratings (average);
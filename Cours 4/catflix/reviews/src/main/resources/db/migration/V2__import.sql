@@ -0,0 +1,5 @@
+INSERT INTO reviews(pseudo, hash, rating, comment) VALUES ('Cat4Life', 'dQw4w9WgXcQ', 10, '<3');
+INSERT INTO reviews(pseudo, hash, rating, comment) VALUES ('Cat4Life', 'ZuRLOlB4N8U', 6, 'Quite fun!');
+INSERT INTO reviews(pseudo, hash, rating, comment) VALUES ('pettier', 'dQw4w9WgXcQ', 8, 'This video helped me through the darkest times');
+
+INSERT INTO video_ratings(hash, rating_sum, rating_count, average) SELECT hash, SUM(rating), COUNT(rating), AVG(CAST(rating AS DOUBLE PRECISION)) FROM reviews GROUP BY hash;
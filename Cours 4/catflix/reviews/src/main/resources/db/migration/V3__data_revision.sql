@@ -0,0 +1,6 @@
+-- Version of the reviews giving the ETags, its single row is created at startup from a random value
+-- A later migration changing the reviews must also run: UPDATE data_revision SET revision = revision + 1
+CREATE TABLE data_revision (
+    id       INTEGER NOT NULL PRIMARY KEY,
+    revision BIGINT  NOT NULL
+);
@@ -0,0 +1,80 @@
+package be.vinci.ipl.catflix.users;
+
+import be.vinci.ipl.catflix.users.models.OutboxEvent;
+import be.vinci.ipl.catflix.users.repositories.AuthenticationProxy;
+import be.vinci.ipl.catflix.users.repositories.OutboxRepository;
+import be.vinci.ipl.catflix.users.repositories.ReviewsProxy;
+import be.vinci.ipl.catflix.users.repositories.VideosProxy;
+import feign.FeignException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Delivers the events written in the outbox to the other services, retrying failed events with an exponential backoff
+ * until they become dead letters. An event may be delivered twice, after a crash for instance: deleting all reviews
+ * or videos of a user twice has no other effect, and the pseudo can't be reused while the event is in the outbox.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private final OutboxRepository repository;
+    private final AuthenticationProxy authenticationProxy;
+    private final VideosProxy videosProxy;
+    private final ReviewsProxy reviewsProxy;
+    private final UsersProperties properties;
+
+    public OutboxDispatcher(OutboxRepository repository, AuthenticationProxy authenticationProxy, VideosProxy videosProxy, ReviewsProxy reviewsProxy,
+                            UsersProperties properties) {
+        this.repository = repository;
+        this.authenticationProxy = authenticationProxy;
+        this.videosProxy = videosProxy;
+        this.reviewsProxy = reviewsProxy;
+        this.properties = properties;
+    }
+
+    /**
+     * Delivers a batch of due events
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.users.outbox-interval:500}")
+    public void dispatch() {
+        List<OutboxEvent> events;
+        do {
+            long now = System.currentTimeMillis();
+            events = repository.findByDeadLetterFalseAndNextAttemptLessThanEqualOrderById(now, Limit.of(properties.getOutboxBatchSize()));
+            for (OutboxEvent event : events) {
+                try {
+                    deliver(event);
+                    repository.delete(event);
+                } catch (FeignException e) {
+                    System.err.println("Could not deliver " + event.getIdempotencyKey() + ": " + e.getMessage());
+                    long backoff = properties.getOutboxBackoff() << Math.min(event.getAttempts(), 20);
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setNextAttempt(now + Math.min(backoff, properties.getOutboxMaxBackoff()));
+                    if (event.getAttempts() >= properties.getOutboxMaxAttempts()) {
+                        System.err.println("Giving up delivering " + event.getIdempotencyKey() + " after " + event.getAttempts() + " attempts");
+                        event.setDeadLetter(true);
+                    }
+                    repository.save(event);
+                }
+            }
+        } while (events.size() == properties.getOutboxBatchSize());
+    }
+
+    private void deliver(OutboxEvent event) throws FeignException {
+        switch (event.getType()) {
+            case DELETE_REVIEWS -> reviewsProxy.deleteFromUser(event.getPseudo());
+            case DELETE_VIDEOS -> videosProxy.deleteFromUser(event.getPseudo());
+            case DELETE_CREDENTIALS -> {
+                try {
+                    authenticationProxy.deleteOne(event.getPseudo());
+                } catch (FeignException.NotFound e) {
+                    // Already deleted by a previous delivery
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package be.vinci.ipl.catflix.users;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmark of the startup with many users, run with the startup-benchmark profile:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=persistent,startup-benchmark
+ * Prints the time since the JVM started and the generated users found, then generates the missing ones,
+ * so the first run fills the file database and the next ones measure a startup with the users already stored.
+ * Without the persistent profile, every run starts empty: the startup plus the insertion is the cost of reloading the users.
+ * The application stops at the end.
+ */
+@Component
+@Profile("startup-benchmark")
+public class StartupBenchmark implements CommandLineRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+    private final int size;
+
+    /**
+     * @param size Number of generated users in the table
+     */
+    public StartupBenchmark(JdbcTemplate jdbcTemplate, ConfigurableApplicationContext context,
+                            @Value("${be.vinci.ipl.catflix.users.startup-benchmark-size:1000000}") int size) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+        this.size = size;
+    }
+
+    @Override
+    public void run(String... args) {
+        long startup = ManagementFactory.getRuntimeMXBean().getUptime();
+        Integer found = jdbcTemplate.queryForObject("select count(*) from users where pseudo like 'benchmark%'", Integer.class);
+        int existing = found == null ? 0 : found;
+        System.out.printf("--- Started with %d generated users in %d ms since the JVM started%n", existing, startup);
+
+        if (existing < size) {
+            long start = System.nanoTime();
+            jdbcTemplate.update("insert into users (pseudo, firstname, lastname) " +
+                    "select 'benchmark' || x, 'Benchmark', 'User' from system_range(?, ?)", existing + 1, size);
+            jdbcTemplate.update("update data_revision set revision = revision + 1"); // written without the service, ETags changed
+            System.out.printf("--- %d users inserted in %d ms%n", size - existing, (System.nanoTime() - start) / 1_000_000);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+}
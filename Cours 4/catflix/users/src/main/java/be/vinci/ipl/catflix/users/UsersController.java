@@ -1,10 +1,14 @@
 package be.vinci.ipl.catflix.users;
 
+import be.vinci.ipl.catflix.users.models.Deletion;
+import be.vinci.ipl.catflix.users.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.users.models.User;
 import be.vinci.ipl.catflix.users.models.UserWithCredentials;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Objects;
@@ -23,20 +27,31 @@ public class UsersController {
         if (!Objects.equals(user.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         if (user.invalid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
 
-        boolean created = service.createOne(user);
+        boolean created;
+        try {
+            created = service.createOne(user);
+        } catch (DataIntegrityViolationException e) {
+            created = false; // created concurrently, and refused by the primary key
+        }
 
         if (!created) throw new ResponseStatusException(HttpStatus.CONFLICT);
         else return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
     @GetMapping("/users/{pseudo}")
-    public User readOne(@PathVariable String pseudo) {
+    public User readOne(@PathVariable String pseudo, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null; // 304 Not Modified, without reading the user
         User user = service.readOne(pseudo);
 
         if (user == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         else return user;
     }
 
+    @RequestMapping(value = "/users/{pseudo}", method = RequestMethod.HEAD)
+    public void existsOne(@PathVariable String pseudo) {
+        if (!service.existsOne(pseudo)) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
     @PutMapping("/users/{pseudo}")
     public void updateOne(@PathVariable String pseudo, @RequestBody UserWithCredentials user) {
         if (!Objects.equals(user.getPseudo(), pseudo)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
@@ -52,4 +67,16 @@ public class UsersController {
         if (!found) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
     }
 
+
+    @GetMapping("/users/deletions")
+    public Iterable<Deletion> readDeletions(@RequestParam(defaultValue = "0") long since) {
+        return service.readDeletions(since);
+    }
+
+
+    @GetMapping("/users/second-level-cache/statistics")
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return service.readSecondLevelCacheStatistics();
+    }
+
 }
@@ -0,0 +1,20 @@
+package be.vinci.ipl.catflix.users;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.users")
+public class UsersProperties {
+    private long outboxInterval = 500; // in milliseconds
+    private int outboxBatchSize = 50;
+    private long outboxBackoff = 1000; // in milliseconds, doubled after each failed attempt
+    private long outboxMaxBackoff = 60000; // in milliseconds
+    private int outboxMaxAttempts = 20; // then the event is kept as a dead letter and no longer retried
+    private long deletionsRetention = 600000; // in milliseconds, longer than the existence caches of the other services
+    private long deletionsPrune = 60000; // in milliseconds
+}
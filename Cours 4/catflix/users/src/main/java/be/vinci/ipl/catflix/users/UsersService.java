@@ -1,26 +1,45 @@
 package be.vinci.ipl.catflix.users;
 
+import be.vinci.ipl.catflix.users.cache.SecondLevelCache;
+import be.vinci.ipl.catflix.users.models.Deletion;
+import be.vinci.ipl.catflix.users.models.OutboxEvent;
+import be.vinci.ipl.catflix.users.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.users.models.User;
 import be.vinci.ipl.catflix.users.models.UserWithCredentials;
 import be.vinci.ipl.catflix.users.repositories.AuthenticationProxy;
-import be.vinci.ipl.catflix.users.repositories.ReviewsProxy;
+import be.vinci.ipl.catflix.users.repositories.DeletionsRepository;
+import be.vinci.ipl.catflix.users.repositories.OutboxRepository;
 import be.vinci.ipl.catflix.users.repositories.UsersRepository;
-import be.vinci.ipl.catflix.users.repositories.VideosProxy;
+import feign.FeignException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
 
 @Service
 public class UsersService {
 
     private final UsersRepository repository;
+    private final OutboxRepository outboxRepository;
+    private final DeletionsRepository deletionsRepository;
     private final AuthenticationProxy authenticationProxy;
-    private final VideosProxy videosProxy;
-    private final ReviewsProxy reviewsProxy;
-
-    public UsersService(UsersRepository repository, AuthenticationProxy authenticationProxy, VideosProxy videosProxy, ReviewsProxy reviewsProxy) {
+    private final SecondLevelCache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersion dataVersion;
+    private final long deletionsRetention;
+
+    public UsersService(UsersRepository repository, OutboxRepository outboxRepository, DeletionsRepository deletionsRepository,
+                        AuthenticationProxy authenticationProxy, SecondLevelCache secondLevelCache, TransactionTemplate transactionTemplate,
+                        DataVersion dataVersion, UsersProperties properties) {
         this.repository = repository;
+        this.outboxRepository = outboxRepository;
+        this.deletionsRepository = deletionsRepository;
         this.authenticationProxy = authenticationProxy;
-        this.videosProxy = videosProxy;
-        this.reviewsProxy = reviewsProxy;
+        this.secondLevelCache = secondLevelCache;
+        this.transactionTemplate = transactionTemplate;
+        this.dataVersion = dataVersion;
+        this.deletionsRetention = properties.getDeletionsRetention();
     }
 
     /**
@@ -28,14 +47,31 @@ public class UsersService {
      *
      * @param user the information of the user
      * @return true if the user was created, false if another user exists with the same pseudo
+     * or a deleted user with the same pseudo is still being cleaned up
      */
     public boolean createOne(UserWithCredentials user) {
-        if (repository.existsById(user.getPseudo())) return false;
-
-        // Potential error results (400, 409) should not happen as this service manages consistency
-        authenticationProxy.createOne(user.getPseudo(), user.toCredentials());
-
-        repository.save(user.toUser());
+        // Committed before calling the authentication service, so no connection is held while waiting for it
+        boolean inserted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (outboxRepository.existsByPseudo(user.getPseudo())) return false;
+            if (repository.insert(user.toUser()) == 0) return false;
+            dataVersion.changed();
+            return true;
+        }));
+        if (!inserted) return false;
+
+        try {
+            try {
+                authenticationProxy.createOne(user.getPseudo(), user.toCredentials());
+            } catch (FeignException.Conflict e) {
+                // Credentials left by a previous creation whose call failed after creating them, replaced
+                authenticationProxy.updateOne(user.getPseudo(), user.toCredentials());
+            }
+        } catch (RuntimeException e) {
+            // Potential error results (400) should not happen as this service manages consistency
+            // If the call fails anyway, the user is deleted again, with what was created for it meanwhile
+            transactionTemplate.execute(status -> delete(user.getPseudo()));
+            throw e;
+        }
         return true;
     }
 
@@ -49,6 +85,25 @@ public class UsersService {
         return repository.findById(pseudo).orElse(null);
     }
 
+    /**
+     * Gives the ETag of the current users, changed by every write
+     *
+     * @return the ETag, to read before the user
+     */
+    public String etag() {
+        return dataVersion.etag();
+    }
+
+    /**
+     * Checks if a user exists in repository, without reading it
+     *
+     * @param pseudo the pseudo of the user
+     * @return true if the user exists, false otherwise
+     */
+    public boolean existsOne(String pseudo) {
+        return repository.existsById(pseudo);
+    }
+
     /**
      * Updates a user in repository
      *
@@ -58,15 +113,26 @@ public class UsersService {
     public boolean updateOne(UserWithCredentials user) {
         if (!repository.existsById(user.getPseudo())) return false;
 
-        // Potential error results (400, 404) should not happen as this service manages consistency
-        authenticationProxy.updateOne(user.getPseudo(), user.toCredentials());
-
-        repository.save(user.toUser());
-        return true;
+        // Called outside any transaction, before updating the user, so a failed call changes nothing
+        // Potential error results (400) should not happen as this service manages consistency
+        try {
+            authenticationProxy.updateOne(user.getPseudo(), user.toCredentials());
+        } catch (FeignException.NotFound e) {
+            return false; // deleted concurrently, its credentials first
+        }
+
+        // If the update fails, the credentials are already changed and the update can be retried
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (repository.update(user.toUser()) == 0) return false;
+            dataVersion.changed();
+            return true;
+        }));
     }
 
     /**
-     * Deletes a user from repository and all reviews and videos associated with it
+     * Deletes a user from repository, after its credentials so it can't connect anymore once deleted,
+     * and writes in the outbox that all reviews and videos associated with it must be deleted.
+     * The outbox is delivered asynchronously by the OutboxDispatcher.
      *
      * @param pseudo the pseudo of the user
      * @return true if the user was deleted, or false if the user couldn't be found
@@ -74,14 +140,60 @@ public class UsersService {
     public boolean deleteOne(String pseudo) {
         if (!repository.existsById(pseudo)) return false;
 
-        reviewsProxy.deleteFromUser(pseudo);
-        videosProxy.deleteFromUser(pseudo);
+        // If the call fails, the user is kept and the deletion can be retried
+        try {
+            authenticationProxy.deleteOne(pseudo);
+        } catch (FeignException.NotFound e) {
+            // Already deleted by a previous attempt whose user deletion failed
+        }
 
-        // Potential error results (404) should not happen as this service manages consistency
-        authenticationProxy.deleteOne(pseudo);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> delete(pseudo)));
+    }
 
+    /**
+     * Deletes a user and writes the outbox events deleting its reviews and videos, in the current transaction.
+     * The deletion is also recorded, for the other services to forget that the user exists.
+     *
+     * @param pseudo the pseudo of the user
+     * @return true if the user was deleted, or false if the user couldn't be found
+     */
+    private boolean delete(String pseudo) {
+        if (!repository.existsById(pseudo)) return false;
         repository.deleteById(pseudo);
+        deletionsRepository.save(new Deletion(pseudo, System.currentTimeMillis()));
+        dataVersion.changed();
+
+        for (OutboxEvent.Type type : List.of(OutboxEvent.Type.DELETE_REVIEWS, OutboxEvent.Type.DELETE_VIDEOS)) {
+            OutboxEvent event = new OutboxEvent(type, pseudo);
+            if (!outboxRepository.existsByIdempotencyKey(event.getIdempotencyKey())) outboxRepository.save(event);
+        }
         return true;
     }
 
+    /**
+     * Lists the deletions made since a time, for the other services to forget the users they remember as existing
+     *
+     * @param since the time of the last deletion already known, in milliseconds since epoch, or 0 to read them all
+     * @return the deletions made after this time
+     */
+    public Iterable<Deletion> readDeletions(long since) {
+        return deletionsRepository.findByDeletedAtGreaterThan(since);
+    }
+
+    /**
+     * Forgets the deletions older than their retention, the other services no longer remembering these users
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.users.deletions-prune:60000}")
+    public void pruneDeletions() {
+        deletionsRepository.deleteDeletedBefore(System.currentTimeMillis() - deletionsRetention);
+    }
+
+    /**
+     * Reads the statistics of the Hibernate second-level cache
+     * @return The hits, misses and puts of the entity and query caches, and the number of statements sent to the database
+     */
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return secondLevelCache.statistics();
+    }
+
 }
@@ -0,0 +1,61 @@
+package be.vinci.ipl.catflix.users.cache;
+
+import be.vinci.ipl.catflix.users.models.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache, enabled with be.vinci.ipl.catflix.second-level-cache.enabled=true.
+ * Keeps the entities read by id, and the results of the queries marked cacheable, in Caffeine caches.
+ * Each instance of the service has its own caches: the entries expire after a while,
+ * so that an instance sees the writes made through another one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "be.vinci.ipl.catflix.second-level-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfiguration {
+
+    /**
+     * @param size Maximum number of entries of each region
+     * @param ttl  Time after which an entry expires, in milliseconds
+     * @return Cache manager with a region for the entities and one for the query results, and the unbounded region
+     * of the last update of each table, that must not be evicted before the query results depending on it
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${be.vinci.ipl.catflix.second-level-cache.size:10000}") long size,
+                                                @Value("${be.vinci.ipl.catflix.second-level-cache.ttl:60000}") long ttl) {
+        CaffeineConfiguration<Object, Object> bounded = new CaffeineConfiguration<>();
+        bounded.setMaximumSize(OptionalLong.of(size));
+        bounded.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttl)));
+
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        cacheManager.createCache(User.class.getName(), bounded);
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded);
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+}
@@ -0,0 +1,19 @@
+package be.vinci.ipl.catflix.users.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "data_revision")
+public class DataRevision {
+    @Id
+    @Column(nullable = false)
+    private int id; // a single row, so every write updates the same revision
+
+    @Column(nullable = false)
+    private long revision;
+}
@@ -0,0 +1,48 @@
+package be.vinci.ipl.catflix.users.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity(name = "outbox")
+@Table(indexes = @Index(name = "outbox_next_attempt", columnList = "next_attempt"))
+public class OutboxEvent {
+    // Credentials are deleted before answering, DELETE_CREDENTIALS is only delivered for the events written before
+    public enum Type { DELETE_REVIEWS, DELETE_VIDEOS, DELETE_CREDENTIALS }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private long id;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey; // type and pseudo, at most one event of each kind per user in the outbox
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private String pseudo;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt", nullable = false)
+    private long nextAttempt; // in milliseconds since epoch
+
+    @Column(name = "dead_letter", nullable = false)
+    private boolean deadLetter; // true when no longer retried, the pseudo staying reserved until the event is handled manually
+
+    public OutboxEvent(Type type, String pseudo) {
+        this.idempotencyKey = type + ":" + pseudo;
+        this.type = type;
+        this.pseudo = pseudo;
+        this.attempts = 0;
+        this.nextAttempt = System.currentTimeMillis();
+        this.deadLetter = false;
+    }
+}
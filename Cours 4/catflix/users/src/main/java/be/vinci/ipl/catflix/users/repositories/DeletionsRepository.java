@@ -0,0 +1,24 @@
+package be.vinci.ipl.catflix.users.repositories;
+
+import be.vinci.ipl.catflix.users.models.Deletion;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeletionsRepository extends CrudRepository<Deletion, String> {
+
+    Iterable<Deletion> findByDeletedAtGreaterThan(long since);
+
+    /**
+     * Deletes the deletions made before a time in a single statement
+     * @return the number of deletions deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from deletions d where d.deletedAt < :before")
+    int deleteDeletedBefore(long before);
+
+}
@@ -0,0 +1,19 @@
+package be.vinci.ipl.catflix.users.repositories;
+
+import be.vinci.ipl.catflix.users.models.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends CrudRepository<OutboxEvent, Long> {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    boolean existsByPseudo(String pseudo);
+
+    List<OutboxEvent> findByDeadLetterFalseAndNextAttemptLessThanEqualOrderById(long now, Limit limit);
+
+}
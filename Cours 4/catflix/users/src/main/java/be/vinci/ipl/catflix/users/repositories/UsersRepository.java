@@ -1,9 +1,37 @@
 package be.vinci.ipl.catflix.users.repositories;
 
 import be.vinci.ipl.catflix.users.models.User;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UsersRepository extends CrudRepository<User, String> {
+
+    /**
+     * Inserts a user unless the pseudo is taken, in a single statement
+     * @return the number of users inserted, 0 if the pseudo is taken
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "users")) // only invalidates the cache of this table
+    @Query(value = "insert into users (pseudo, firstname, lastname) " +
+            "select cast(:#{#user.pseudo} as varchar), cast(:#{#user.firstname} as varchar), cast(:#{#user.lastname} as varchar) " +
+            "where not exists (select 1 from users where pseudo = :#{#user.pseudo})", nativeQuery = true)
+    int insert(User user);
+
+    /**
+     * Updates a user in a single statement, without reading it first
+     * @return the number of users updated, 0 if the user couldn't be found
+     */
+    @Modifying
+    @Transactional
+    @Query("update users u set u.firstname = :#{#user.firstname}, u.lastname = :#{#user.lastname} where u.pseudo = :#{#user.pseudo}")
+    int update(User user);
+
 }
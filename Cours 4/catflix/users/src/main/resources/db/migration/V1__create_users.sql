@@ -0,0 +1,15 @@
+CREATE TABLE users (
+    pseudo    VARCHAR(255) NOT NULL PRIMARY KEY,
+    firstname VARCHAR(255) NOT NULL,
+    lastname  VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    type            ENUM ('DELETE_REVIEWS', 'DELETE_VIDEOS', 'DELETE_CREDENTIALS') NOT NULL,
+    pseudo          VARCHAR(255) NOT NULL,
+    attempts        INTEGER      NOT NULL,
+    next_attempt    BIGINT       NOT NULL
+);
+CREATE INDEX outbox_next_attempt ON outbox (next_attempt);
@@ -0,0 +1,3 @@
+INSERT INTO users(pseudo, firstname, lastname) VALUES ('PetWard', 'Marine', 'Pelland');
+INSERT INTO users(pseudo, firstname, lastname) VALUES ('Cat4Life', 'Christine', 'Rouze');
+INSERT INTO users(pseudo, firstname, lastname) VALUES ('pettier', 'Florismart', 'Panetier');
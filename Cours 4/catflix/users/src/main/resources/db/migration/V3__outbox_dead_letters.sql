@@ -0,0 +1 @@
+ALTER TABLE outbox ADD COLUMN dead_letter BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,65 @@
+package be.vinci.ipl.catflix.videos;
+
+import be.vinci.ipl.catflix.videos.models.DataRevision;
+import be.vinci.ipl.catflix.videos.repositories.DataRevisionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version of the videos, changed by each write, giving the ETag of the reads
+ * so a conditional read is answered with a single primary key lookup, before querying the videos and serialising the response.
+ * The version is the data_revision row, incremented in the transaction of the write, so it is shared by all instances
+ * using the same database and a rolled back write doesn't change it.
+ * It starts from a random value when the row is created, so the ETags given before the in-memory database was recreated don't match,
+ * and the ETag is weak as the same version is served as JSON or Smile.
+ * A write made without this service (H2 shell, migration, benchmark) must also increment it:
+ * UPDATE data_revision SET revision = revision + 1
+ */
+@Component
+public class DataVersion {
+
+    private static final int ID = 1;
+
+    private final DataRevisionRepository repository;
+
+    public DataVersion(DataRevisionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Creates the row of the version if the database doesn't have it yet
+     */
+    @PostConstruct
+    public void create() {
+        if (repository.existsById(ID)) return;
+        try {
+            repository.save(new DataRevision(ID, ThreadLocalRandom.current().nextLong()));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another instance sharing the database
+        }
+    }
+
+    /**
+     * Gives the ETag of the current version, to read before the data so a write committed meanwhile changes it
+     * @return The weak ETag
+     */
+    public String etag() {
+        return "W/\"" + Long.toHexString(repository.readRevision(ID)) + "\"";
+    }
+
+    /**
+     * Changes the version in the current transaction, committed or rolled back with the write.
+     * Concurrent writes wait for each other on the row until they commit, so it is best called at the end of the transaction.
+     * @throws IllegalStateException if called outside a transaction
+     */
+    public void changed() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+            throw new IllegalStateException("The version must be changed in the transaction of the write");
+        repository.increment(ID);
+    }
+
+}
@@ -0,0 +1,114 @@
+package be.vinci.ipl.catflix.videos;
+
+import be.vinci.ipl.catflix.videos.repositories.VideosRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark of the video list queries as the catalogue grows, run with the benchmark profile:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=benchmark -Dspring-boot.run.jvmArguments=-Xmx6g
+ * For each size, fills the table with videos, each author having 100 videos,
+ * then prints the mean latency of the full and summary queries and how the database runs them.
+ * The lookups are drawn from a fixed seed, so two runs measure the same queries. The application stops at the end.
+ */
+@Component
+@Profile("benchmark")
+public class VideosBenchmark implements CommandLineRunner {
+
+    private static final int VIDEOS_PER_AUTHOR = 100;
+    private static final int PAGE_SIZE = 1000;
+    private static final int BATCH_SIZE = 10000;
+    private static final int WARM_UP = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VideosRepository repository;
+    private final ConfigurableApplicationContext context;
+    private final List<Integer> sizes;
+    private final int lookups;
+
+    /**
+     * @param sizes   Numbers of videos in the table, measured one after the other
+     * @param lookups Number of queries measured for each query and size
+     */
+    public VideosBenchmark(JdbcTemplate jdbcTemplate, VideosRepository repository, ConfigurableApplicationContext context,
+                           @Value("${be.vinci.ipl.catflix.videos.benchmark-sizes:10000,1000000,10000000}") List<Integer> sizes,
+                           @Value("${be.vinci.ipl.catflix.videos.benchmark-lookups:1000}") int lookups) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.context = context;
+        this.sizes = sizes;
+        this.lookups = lookups;
+    }
+
+    @Override
+    public void run(String... args) {
+        for (int size : sizes) {
+            long start = System.nanoTime();
+            fill(size);
+            System.out.printf("--- %d videos, inserted in %d ms%n", size, (System.nanoTime() - start) / 1_000_000);
+
+            int authors = Math.max(1, size / VIDEOS_PER_AUTHOR);
+            Random random = new Random(size);
+            measure("findByAuthor", () -> repository.findByAuthor(author(random.nextInt(authors))).forEach(video -> {}));
+            measure("findSummariesByAuthor", () -> repository.findSummariesByAuthor(author(random.nextInt(authors))));
+            measure("findByHashGreaterThan", () ->
+                    repository.findByHashGreaterThanOrderByHashAsc(hash(random.nextInt(size)), Limit.of(PAGE_SIZE)));
+            measure("findSummariesByHashGreaterThan", () ->
+                    repository.findSummariesByHashGreaterThanOrderByHashAsc(hash(random.nextInt(size)), Limit.of(PAGE_SIZE)));
+
+            explain("select * from videos where author = 'author0'");
+            explain("select hash, name, duration from videos where author = 'author0'");
+            explain("select hash, name, duration from videos where hash > 'video0' order by hash limit " + PAGE_SIZE);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * Replaces the videos with generated ones
+     * @param size Number of videos to generate
+     */
+    private void fill(int size) {
+        jdbcTemplate.execute("truncate table videos");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int video = 0; video < size; video++) {
+            batch.add(new Object[]{hash(video), "Benchmark video " + video, author(video % Math.max(1, size / VIDEOS_PER_AUTHOR)),
+                    2000 + video % 20, 1 + video % 3600, "https://www.youtube.com/watch?v=" + hash(video)});
+            if (batch.size() == BATCH_SIZE || video == size - 1) {
+                jdbcTemplate.batchUpdate("insert into videos (hash, name, author, creation_year, duration, url) values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.update("update data_revision set revision = revision + 1"); // written without the service, ETags changed
+    }
+
+    private static String hash(int video) {
+        return "video" + video;
+    }
+
+    private static String author(int author) {
+        return "author" + author;
+    }
+
+    private void measure(String query, Runnable lookup) {
+        for (int i = 0; i < WARM_UP; i++) lookup.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) lookup.run();
+        System.out.printf("%-32s %10.1f µs%n", query, (System.nanoTime() - start) / 1000.0 / lookups);
+    }
+
+    private void explain(String query) {
+        String plan = String.join(" ", jdbcTemplate.queryForList("explain " + query, String.class));
+        System.out.println(plan.replaceAll("\\s+", " "));
+    }
+
+}
@@ -1,20 +1,34 @@
 package be.vinci.ipl.catflix.videos;
 
+import be.vinci.ipl.catflix.videos.models.Deletion;
+import be.vinci.ipl.catflix.videos.models.SecondLevelCacheStatistics;
 import be.vinci.ipl.catflix.videos.models.Video;
+import be.vinci.ipl.catflix.videos.models.VideoSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.Objects;
 
 @RestController
 public class VideosController {
 
     private final VideosService service;
+    private final ObjectMapper objectMapper;
+    private final int pageMaxSize;
+    private final int streamPageSize;
 
-    public VideosController(VideosService service) {
+    public VideosController(VideosService service, ObjectMapper objectMapper, VideosProperties properties) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.pageMaxSize = properties.getPageMaxSize();
+        this.streamPageSize = properties.getStreamPageSize();
     }
 
 
@@ -24,7 +38,12 @@ public class VideosController {
         if (video.invalid()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
         if (service.userNotExists(video.getAuthor())) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
 
-        boolean created = service.createOne(video);
+        boolean created;
+        try {
+            created = service.createOne(video);
+        } catch (DataIntegrityViolationException e) {
+            created = false; // created concurrently, and refused by the primary key
+        }
 
         if (!created) throw new ResponseStatusException(HttpStatus.CONFLICT);
         return new ResponseEntity<>(HttpStatus.CREATED);
@@ -32,23 +51,73 @@ public class VideosController {
 
 
     @GetMapping("/videos")
-    public Iterable<Video> readAll() {
-        return service.readAll();
+    public Iterable<Video> readAll(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+                                   WebRequest request) {
+        if (limit != null && limit <= 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        if (request.checkNotModified(service.etag())) return null; // 304 Not Modified, without reading the videos
+        if (limit == null && after == null) return service.readAll();
+
+        return service.readPage(after, limit == null ? pageMaxSize : Math.min(limit, pageMaxSize));
+    }
+
+    @GetMapping(value = "/videos", params = "summary")
+    public List<VideoSummary> readAllSummaries(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+                                               WebRequest request) {
+        if (limit != null && limit <= 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST);
+        if (request.checkNotModified(service.etag())) return null;
+        if (limit == null && after == null) return service.readAllSummaries();
+
+        return service.readSummaryPage(after, limit == null ? pageMaxSize : Math.min(limit, pageMaxSize));
+    }
+
+    @GetMapping(value = "/videos", params = "stream", produces = "application/x-ndjson")
+    public StreamingResponseBody streamAll() {
+        return output -> {
+            List<Video> page;
+            String after = null;
+            do {
+                page = service.readPage(after, streamPageSize);
+                for (Video video : page) {
+                    output.write(objectMapper.writeValueAsBytes(video));
+                    output.write('\n');
+                }
+                output.flush();
+                if (!page.isEmpty()) after = page.get(page.size() - 1).getHash();
+            } while (page.size() == streamPageSize);
+        };
     }
 
     @GetMapping("/videos/{hash}")
-    public Video readOne(@PathVariable String hash) {
+    public Video readOne(@PathVariable String hash, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null;
         Video video = service.readOne(hash);
 
         if (video == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         else return video;
     }
 
+    @RequestMapping(value = "/videos/{hash}", method = RequestMethod.HEAD)
+    public void existsOne(@PathVariable String hash) {
+        if (!service.existsOne(hash)) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+    }
+
+    @PostMapping("/videos/batch")
+    public Iterable<Video> readMany(@RequestBody List<String> hashes) {
+        return service.readMany(hashes);
+    }
+
     @GetMapping("/videos/users/{author}")
-    public Iterable<Video> readFromAuthor(@PathVariable String author) {
+    public Iterable<Video> readFromAuthor(@PathVariable String author, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null;
         return service.readFromAuthor(author);
     }
 
+    @GetMapping(value = "/videos/users/{author}", params = "summary")
+    public List<VideoSummary> readSummariesFromAuthor(@PathVariable String author, WebRequest request) {
+        if (request.checkNotModified(service.etag())) return null;
+        return service.readSummariesFromAuthor(author);
+    }
+
 
     @PutMapping("/videos/{hash}")
     public void updateOne(@PathVariable String hash, @RequestBody Video video) {
@@ -77,4 +146,16 @@ public class VideosController {
         service.deleteFromAuthor(pseudo);
     }
 
+
+    @GetMapping("/videos/deletions")
+    public Iterable<Deletion> readDeletions(@RequestParam(defaultValue = "0") long since) {
+        return service.readDeletions(since);
+    }
+
+
+    @GetMapping("/videos/second-level-cache/statistics")
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return service.readSecondLevelCacheStatistics();
+    }
+
 }
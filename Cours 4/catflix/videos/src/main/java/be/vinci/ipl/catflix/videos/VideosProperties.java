@@ -0,0 +1,22 @@
+package be.vinci.ipl.catflix.videos;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "be.vinci.ipl.catflix.videos")
+public class VideosProperties {
+    private int pageMaxSize = 1000;
+    private int streamPageSize = 500;
+    private int reviewsDeleteChunkSize = 100; // number of videos whose reviews are deleted per call
+    private int existenceCacheSize = 10000;
+    private long existenceCacheTtl = 60000; // in milliseconds, the deletions read from the users service invalidating it sooner
+    private long existenceCacheNegativeTtl = 5000; // in milliseconds
+    private long deletionsRefresh = 5000; // in milliseconds
+    private long deletionsRetention = 600000; // in milliseconds, longer than the existence caches of the other services
+    private long deletionsPrune = 60000; // in milliseconds
+}
@@ -1,50 +1,116 @@
 package be.vinci.ipl.catflix.videos;
 
+import be.vinci.ipl.catflix.videos.cache.SecondLevelCache;
+import be.vinci.ipl.catflix.videos.models.Deletion;
+import be.vinci.ipl.catflix.videos.models.SecondLevelCacheStatistics;
+import be.vinci.ipl.catflix.videos.models.UserDeletion;
 import be.vinci.ipl.catflix.videos.models.Video;
+import be.vinci.ipl.catflix.videos.models.VideoSummary;
+import be.vinci.ipl.catflix.videos.repositories.DeletionsRepository;
 import be.vinci.ipl.catflix.videos.repositories.ReviewsProxy;
 import be.vinci.ipl.catflix.videos.repositories.UsersProxy;
 import be.vinci.ipl.catflix.videos.repositories.VideosRepository;
 import feign.FeignException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
 
 @Service
 public class VideosService {
 
     private final VideosRepository repository;
+    private final DeletionsRepository deletionsRepository;
     private final ReviewsProxy reviewsProxy;
     private final UsersProxy usersProxy;
+    private final SecondLevelCache secondLevelCache;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersion dataVersion;
+    private final int reviewsDeleteChunkSize;
+    private final long deletionsRetention;
+    private final ExistenceCache usersCache;
 
-    public VideosService(VideosRepository repository, ReviewsProxy reviewsProxy, UsersProxy usersProxy) {
+    public VideosService(VideosRepository repository, DeletionsRepository deletionsRepository, ReviewsProxy reviewsProxy, UsersProxy usersProxy,
+                         SecondLevelCache secondLevelCache, TransactionTemplate transactionTemplate, DataVersion dataVersion,
+                         VideosProperties properties) {
         this.repository = repository;
+        this.deletionsRepository = deletionsRepository;
         this.reviewsProxy = reviewsProxy;
         this.usersProxy = usersProxy;
+        this.secondLevelCache = secondLevelCache;
+        this.transactionTemplate = transactionTemplate;
+        this.dataVersion = dataVersion;
+        this.reviewsDeleteChunkSize = properties.getReviewsDeleteChunkSize();
+        this.deletionsRetention = properties.getDeletionsRetention();
+        this.usersCache = new ExistenceCache(properties.getExistenceCacheSize(), properties.getExistenceCacheTtl(), properties.getExistenceCacheNegativeTtl());
     }
 
     /**
-     * Checks if a user exists in the users service
+     * Checks if a user exists in the users service, remembering the answer for a while
      * @param pseudo Pseudo of the user
      * @return true if the user does not exist, false otherwise
      */
     public boolean userNotExists(String pseudo) {
+        return !usersCache.exists(pseudo, key -> {
+            try {
+                usersProxy.existsOne(key);
+                return true;
+            } catch (FeignException.FeignClientException e) {
+                if (e.status() == 404) return false;
+                else throw e;
+            }
+        });
+    }
+
+
+    /**
+     * Forgets the users deleted through any instance of the users service since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.videos.deletions-refresh:5000}")
+    public void refreshDeletions() {
         try {
-            usersProxy.readOne(pseudo);
-            return false;
-        } catch (FeignException.FeignClientException e) {
-            if (e.status() == 404) return true;
-            else throw e;
+            for (UserDeletion deletion : usersProxy.readDeletions(usersCache.deletionsSince())) {
+                usersCache.deleted(deletion.getPseudo(), deletion.getDeletedAt());
+            }
+        } catch (FeignException e) {
+            // The users remembered meanwhile are forgotten after their time to live
+            System.err.println("Could not refresh user deletions: " + e.getMessage());
         }
     }
 
 
+    /**
+     * Checks if a video exists in repository, without reading it
+     * @param hash the hash of the video
+     * @return true if the video exists, false otherwise
+     */
+    public boolean existsOne(String hash) {
+        return repository.existsById(hash);
+    }
+
+
     /**
      * Creates a video in repository
      * @param video the video to create
      * @return true if the video was created, or false if another video exists with same hash
      */
     public boolean createOne(Video video) {
-        if (repository.existsById(video.getHash())) return false;
-        repository.save(video);
-        return true;
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (repository.insert(video) == 0) return false;
+            dataVersion.changed();
+            return true;
+        }));
+    }
+
+
+    /**
+     * Gives the ETag of the current videos, changed by every write
+     * @return The ETag, to read before the videos
+     */
+    public String etag() {
+        return dataVersion.etag();
     }
 
 
@@ -56,6 +122,17 @@ public class VideosService {
         return repository.findAll();
     }
 
+    /**
+     * Reads a page of videos from repository, ordered by hash
+     * @param after the hash of the last video of the previous page, or null for the first page
+     * @param limit the maximum number of videos in the page
+     * @return the videos of the page, the next page being empty when less than limit videos are returned
+     */
+    public List<Video> readPage(String after, int limit) {
+        if (after == null) return repository.findByOrderByHashAsc(Limit.of(limit));
+        return repository.findByHashGreaterThanOrderByHashAsc(after, Limit.of(limit));
+    }
+
     /**
      * Reads a video with a certain hash from repository
      * @param hash the hash to search for
@@ -65,6 +142,15 @@ public class VideosService {
         return repository.findById(hash).orElse(null);
     }
 
+    /**
+     * Reads the videos with certain hashes from repository, in a single query
+     * @param hashes the hashes to search for
+     * @return the videos found, in no particular order
+     */
+    public Iterable<Video> readMany(List<String> hashes) {
+        return repository.findAllById(hashes);
+    }
+
     /**
      * Reads all videos from an author
      * @param author the author of the videos
@@ -74,6 +160,34 @@ public class VideosService {
         return repository.findByAuthor(author);
     }
 
+    /**
+     * Reads the summaries of all videos from repository, without their other columns
+     * @return the summaries of all videos
+     */
+    public List<VideoSummary> readAllSummaries() {
+        return repository.findSummariesBy();
+    }
+
+    /**
+     * Reads a page of video summaries from repository, ordered by hash
+     * @param after the hash of the last video of the previous page, or null for the first page
+     * @param limit the maximum number of videos in the page
+     * @return the summaries of the page, the next page being empty when less than limit summaries are returned
+     */
+    public List<VideoSummary> readSummaryPage(String after, int limit) {
+        if (after == null) return repository.findSummariesByOrderByHashAsc(Limit.of(limit));
+        return repository.findSummariesByHashGreaterThanOrderByHashAsc(after, Limit.of(limit));
+    }
+
+    /**
+     * Reads the summaries of all videos from an author, without their other columns
+     * @param author the author of the videos
+     * @return the summaries of all videos from this author
+     */
+    public List<VideoSummary> readSummariesFromAuthor(String author) {
+        return repository.findSummariesByAuthor(author);
+    }
+
 
     /**
      * Updates a video in repository
@@ -81,9 +195,11 @@ public class VideosService {
      * @return true if the video was updated, or false if the video couldn't be found
      */
     public boolean updateOne(Video video) {
-        if (!repository.existsById(video.getHash())) return false;
-        repository.save(video);
-        return true;
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (repository.update(video) == 0) return false;
+            dataVersion.changed();
+            return true;
+        }));
     }
 
 
@@ -91,9 +207,21 @@ public class VideosService {
      * Deletes all videos from repository and all reviews associated with them
      */
     public void deleteAll() {
-        for (Video video : repository.findAll()) reviewsProxy.deleteFromVideo(video.getHash());
+        List<Video> page;
+        String after = null;
+        do {
+            page = readPage(after, reviewsDeleteChunkSize);
+            if (!page.isEmpty()) {
+                reviewsProxy.deleteFromVideos(page.stream().map(Video::getHash).toList());
+                after = page.get(page.size() - 1).getHash();
+            }
+        } while (page.size() == reviewsDeleteChunkSize);
 
-        repository.deleteAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            deletionsRepository.recordAll(System.currentTimeMillis());
+            repository.deleteAll();
+            dataVersion.changed();
+        });
     }
 
     /**
@@ -106,7 +234,11 @@ public class VideosService {
 
         reviewsProxy.deleteFromVideo(hash);
 
-        repository.deleteById(hash);
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.deleteById(hash);
+            deletionsRepository.save(new Deletion(hash, System.currentTimeMillis()));
+            dataVersion.changed();
+        });
         return true;
     }
 
@@ -115,9 +247,44 @@ public class VideosService {
      * @param author the author of the videos
      */
     public void deleteFromAuthor(String author) {
-        for (Video video : repository.findByAuthor(author)) reviewsProxy.deleteFromVideo(video.getHash());
+        usersCache.invalidate(author); // called when the author is deleted
+        List<String> hashes = repository.findSummariesByAuthor(author).stream()
+                .map(VideoSummary::getHash)
+                .toList();
+        for (int i = 0; i < hashes.size(); i += reviewsDeleteChunkSize) {
+            reviewsProxy.deleteFromVideos(hashes.subList(i, Math.min(i + reviewsDeleteChunkSize, hashes.size())));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            deletionsRepository.recordFromAuthor(author, System.currentTimeMillis());
+            repository.deleteByAuthor(author);
+            dataVersion.changed();
+        });
+    }
+
+    /**
+     * Lists the deletions made since a time, for the other services to forget the videos they remember as existing
+     * @param since the time of the last deletion already known, in milliseconds since epoch, or 0 to read them all
+     * @return the deletions made after this time
+     */
+    public Iterable<Deletion> readDeletions(long since) {
+        return deletionsRepository.findByDeletedAtGreaterThan(since);
+    }
 
-        repository.deleteByAuthor(author);
+    /**
+     * Forgets the deletions older than their retention, the other services no longer remembering these videos
+     */
+    @Scheduled(fixedDelayString = "${be.vinci.ipl.catflix.videos.deletions-prune:60000}")
+    public void pruneDeletions() {
+        deletionsRepository.deleteDeletedBefore(System.currentTimeMillis() - deletionsRetention);
+    }
+
+    /**
+     * Reads the statistics of the Hibernate second-level cache
+     * @return The hits, misses and puts of the entity and query caches, and the number of statements sent to the database
+     */
+    public SecondLevelCacheStatistics readSecondLevelCacheStatistics() {
+        return secondLevelCache.statistics();
     }
 
 }
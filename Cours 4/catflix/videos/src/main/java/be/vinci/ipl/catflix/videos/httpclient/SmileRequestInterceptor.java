@@ -0,0 +1,36 @@
+package be.vinci.ipl.catflix.videos.httpclient;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asks the responses in Smile, a compact binary encoding of JSON, instead of JSON, for the Feign clients
+ * opting in with be.vinci.ipl.catflix.http-client.smile.{name}=true.
+ * JSON stays accepted, for the services that can't answer Smile. Routes asking a specific format keep it.
+ */
+@Component
+public class SmileRequestInterceptor implements RequestInterceptor {
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    private final Environment environment;
+
+    public SmileRequestInterceptor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (template.headers().containsKey(HttpHeaders.ACCEPT)) return;
+
+        String client = template.feignTarget().name();
+        if (environment.getProperty("be.vinci.ipl.catflix.http-client.smile." + client, Boolean.class, false)) {
+            template.header(HttpHeaders.ACCEPT, SMILE, MediaType.APPLICATION_JSON_VALUE + ";q=0.9");
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package be.vinci.ipl.catflix.videos.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer of each Feign client, chosen with be.vinci.ipl.catflix.load-balancer.clients.{name}:
+ * latency-aware, or round-robin by default.
+ * Not annotated with @Configuration as it is instantiated once per client by Spring Cloud LoadBalancer.
+ */
+public class LoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                                   LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                                   InstanceStatistics statistics) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        String strategy = environment.getProperty("be.vinci.ipl.catflix.load-balancer.clients." + name, "round-robin");
+        ObjectProvider<ServiceInstanceListSupplier> supplierProvider = loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class);
+
+        if (strategy.equals("latency-aware")) return new LatencyAwareLoadBalancer(supplierProvider, name, statistics);
+        return new RoundRobinLoadBalancer(supplierProvider, name);
+    }
+
+}
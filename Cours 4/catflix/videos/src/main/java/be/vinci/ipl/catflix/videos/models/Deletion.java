@@ -0,0 +1,20 @@
+package be.vinci.ipl.catflix.videos.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "deletions")
+@Table(indexes = @Index(name = "deletions_deleted_at", columnList = "deleted_at"))
+public class Deletion {
+    @Id
+    @Column(nullable = false)
+    private String hash;
+
+    @Column(name = "deleted_at", nullable = false)
+    private long deletedAt; // in milliseconds since epoch
+}
@@ -0,0 +1,21 @@
+package be.vinci.ipl.catflix.videos.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecondLevelCacheStatistics {
+    private boolean enabled;
+    private long entityHits;
+    private long entityMisses;
+    private long entityPuts;
+    private long queryHits;
+    private long queryMisses;
+    private long queryPuts;
+    private long statements; // prepared for the database since startup
+}
@@ -1,12 +1,17 @@
 package be.vinci.ipl.catflix.videos.models;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
@@ -15,6 +20,9 @@ import java.time.LocalDate;
 @ToString
 @NoArgsConstructor
 @Entity(name = "videos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = @Index(name = "videos_author", columnList = "author"))
 public class Video {
     @Id
     @Column(nullable = false)
@@ -0,0 +1,17 @@
+package be.vinci.ipl.catflix.videos.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Columns of a video shown in lists, read without the rest of the row
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class VideoSummary {
+    private String hash;
+    private String name;
+    private int duration; // in seconds
+}
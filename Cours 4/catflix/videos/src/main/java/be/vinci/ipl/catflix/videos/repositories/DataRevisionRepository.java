@@ -0,0 +1,29 @@
+package be.vinci.ipl.catflix.videos.repositories;
+
+import be.vinci.ipl.catflix.videos.models.DataRevision;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataRevisionRepository extends CrudRepository<DataRevision, Integer> {
+
+    /**
+     * Reads the revision of a row, without loading the entity
+     * @return the revision
+     */
+    @Query("select r.revision from data_revision r where r.id = :id")
+    long readRevision(int id);
+
+    /**
+     * Increments the revision of a row in the current transaction, holding its lock until the commit
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("update data_revision r set r.revision = r.revision + 1 where r.id = :id")
+    int increment(int id);
+
+}
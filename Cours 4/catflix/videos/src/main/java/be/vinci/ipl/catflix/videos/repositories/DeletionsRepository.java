@@ -0,0 +1,46 @@
+package be.vinci.ipl.catflix.videos.repositories;
+
+import be.vinci.ipl.catflix.videos.models.Deletion;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeletionsRepository extends CrudRepository<Deletion, String> {
+
+    Iterable<Deletion> findByDeletedAtGreaterThan(long since);
+
+    /**
+     * Records the deletion of all videos in a single statement, to be called before deleting them
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "deletions")) // only invalidates the cache of this table
+    @Query(value = "merge into deletions (hash, deleted_at) key (hash) select hash, :deletedAt from videos", nativeQuery = true)
+    void recordAll(long deletedAt);
+
+    /**
+     * Records the deletion of all videos from an author in a single statement, to be called before deleting them
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "deletions"))
+    @Query(value = "merge into deletions (hash, deleted_at) key (hash) select hash, :deletedAt from videos where author = :author",
+            nativeQuery = true)
+    void recordFromAuthor(String author, long deletedAt);
+
+    /**
+     * Deletes the deletions made before a time in a single statement
+     * @return the number of deletions deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from deletions d where d.deletedAt < :before")
+    int deleteDeletedBefore(long before);
+
+}
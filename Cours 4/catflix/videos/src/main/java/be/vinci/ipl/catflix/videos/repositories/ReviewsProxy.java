@@ -4,6 +4,9 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @Repository
 @FeignClient(name = "reviews")
@@ -12,4 +15,7 @@ public interface ReviewsProxy {
     @DeleteMapping("/reviews/videos/{hash}")
     void deleteFromVideo(@PathVariable String hash);
 
+    @DeleteMapping("/reviews/videos")
+    void deleteFromVideos(@RequestParam List<String> hashes);
+
 }
@@ -1,10 +1,16 @@
 package be.vinci.ipl.catflix.videos.repositories;
 
 import be.vinci.ipl.catflix.videos.models.User;
+import be.vinci.ipl.catflix.videos.models.UserDeletion;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 @Repository
 @FeignClient(name = "users")
@@ -13,4 +19,10 @@ public interface UsersProxy {
     @GetMapping("/users/{pseudo}")
     User readOne(@PathVariable String pseudo);
 
+    @RequestMapping(value = "/users/{pseudo}", method = RequestMethod.HEAD)
+    void existsOne(@PathVariable String pseudo);
+
+    @GetMapping("/users/deletions")
+    List<UserDeletion> readDeletions(@RequestParam long since);
+
 }
@@ -1,16 +1,62 @@
 package be.vinci.ipl.catflix.videos.repositories;
 
 import be.vinci.ipl.catflix.videos.models.Video;
+import be.vinci.ipl.catflix.videos.models.VideoSummary;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface VideosRepository extends CrudRepository<Video, String> {
 
+    List<Video> findByOrderByHashAsc(Limit limit);
+
+    List<Video> findByHashGreaterThanOrderByHashAsc(String hash, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Iterable<Video> findByAuthor(String author);
 
+    List<VideoSummary> findSummariesBy();
+
+    List<VideoSummary> findSummariesByOrderByHashAsc(Limit limit);
+
+    List<VideoSummary> findSummariesByHashGreaterThanOrderByHashAsc(String hash, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<VideoSummary> findSummariesByAuthor(String author);
+
     @Transactional
     void deleteByAuthor(String author);
 
+    /**
+     * Inserts a video unless the hash is taken, in a single statement
+     * @return the number of videos inserted, 0 if the hash is taken
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "videos")) // only invalidates the cache of this table
+    @Query(value = "insert into videos (hash, name, author, creation_year, duration, url) " +
+            "select cast(:#{#video.hash} as varchar), cast(:#{#video.name} as varchar), cast(:#{#video.author} as varchar), " +
+            "cast(:#{#video.creationYear} as int), cast(:#{#video.duration} as int), cast(:#{#video.url} as varchar) " +
+            "where not exists (select 1 from videos where hash = :#{#video.hash})", nativeQuery = true)
+    int insert(Video video);
+
+    /**
+     * Updates a video in a single statement, without reading it first
+     * @return the number of videos updated, 0 if the video couldn't be found
+     */
+    @Modifying
+    @Transactional
+    @Query("update videos v set v.name = :#{#video.name}, v.author = :#{#video.author}, v.creationYear = :#{#video.creationYear}, " +
+            "v.duration = :#{#video.duration}, v.url = :#{#video.url} where v.hash = :#{#video.hash}")
+    int update(Video video);
+
 }
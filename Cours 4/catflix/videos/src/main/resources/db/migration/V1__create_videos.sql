@@ -0,0 +1,9 @@
+CREATE TABLE videos (
+    hash          VARCHAR(255) NOT NULL PRIMARY KEY,
+    name          VARCHAR(255) NOT NULL,
+    author        VARCHAR(255) NOT NULL,
+    creation_year INTEGER      NOT NULL,
+    duration      INTEGER      NOT NULL,
+    url           VARCHAR(255) NOT NULL
+);
+CREATE INDEX videos_author ON videos (author);
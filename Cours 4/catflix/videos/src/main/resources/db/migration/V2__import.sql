@@ -0,0 +1,3 @@
+INSERT INTO videos(hash, name, author, creation_year, duration, url) VALUES ('JxS5E-kZc2s','Funny Cats Compilation (Most Popular) Part 1','NoCAT NoLiFE 2',2015,1004,'https://www.youtube.com/watch?v=JxS5E-kZc2s');
+INSERT INTO videos(hash, name, author, creation_year, duration, url) VALUES ('ZuRLOlB4N8U','Cute Animals for When You are Stressed','PetWard',2021,949,'https://www.youtube.com/watch?v=ZuRLOlB4N8U');
+INSERT INTO videos(hash, name, author, creation_year, duration, url) VALUES ('dQw4w9WgXcQ','Cutest kitty ever','Cat4Life',2009,212,'https://www.youtube.com/watch?v=dQw4w9WgXcQ');
@@ -0,0 +1,5 @@
+CREATE TABLE deletions (
+    hash       VARCHAR(255) NOT NULL PRIMARY KEY,
+    deleted_at BIGINT       NOT NULL
+);
+CREATE INDEX deletions_deleted_at ON deletions (deleted_at);
@@ -3,11 +3,13 @@ package com.example.gateway
 import org.springframework.boot.autoconfigure.SpringBootApplication
 import org.springframework.boot.runApplication
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients
 import org.springframework.cloud.openfeign.EnableFeignClients
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients
+@LoadBalancerClients(defaultConfiguration = [LoadBalancerConfiguration::class])
 class GatewayApplication
 
 fun main(args: Array<String>) {
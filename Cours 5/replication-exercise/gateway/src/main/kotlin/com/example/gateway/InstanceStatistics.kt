@@ -0,0 +1,113 @@
+package com.example.gateway
+
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.cloud.client.ServiceInstance
+import org.springframework.cloud.client.loadbalancer.*
+import org.springframework.stereotype.Component
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Tracks the latency (as an exponentially weighted moving average) and the number of requests in flight
+ * of every instance called through the load balancer, and ejects the instances that fail or respond abnormally slowly.
+ * The average covers all the endpoints of an instance, so a response is only a latency spike when it is also slower
+ * than an absolute minimum: endpoints slow by design aren't spikes.
+ */
+@Component
+class InstanceStatistics(
+    @Value("\${load-balancer.ewma-weight:0.3}") private val weight: Double,
+    // Number of consecutive errors or latency spikes after which an instance is ejected
+    @Value("\${load-balancer.outliers.consecutive-errors:5}") private val maxConsecutiveErrors: Int,
+    // A response slower than this factor times the average latency counts as an error, 0 to disable
+    @Value("\${load-balancer.outliers.latency-spike-factor:5}") private val latencySpikeFactor: Double,
+    // Minimum latency of a response counted as an error, in milliseconds
+    @Value("\${load-balancer.outliers.latency-spike-min:1000}") private val latencySpikeMin: Long,
+    // Time an instance is ejected the first time, in milliseconds, doubled at each new ejection
+    @Value("\${load-balancer.outliers.ejection-time:5000}") private val ejectionTime: Long,
+    @Value("\${load-balancer.outliers.max-ejection-time:60000}") private val maxEjectionTime: Long
+) : LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private class Statistics {
+        val inFlight = AtomicInteger()
+        var latency = -1.0 // in milliseconds, -1 until the first response
+        var consecutiveErrors = 0
+        var ejections = 0 // number of consecutive ejections, without success in between
+        var ejectedUntil = 0L // in milliseconds since epoch
+    }
+
+    private val statistics = ConcurrentHashMap<String, Statistics>()
+
+    private fun get(instance: ServiceInstance) =
+        statistics.computeIfAbsent("${instance.serviceId}@${instance.host}:${instance.port}") { Statistics() }
+
+    /**
+     * Checks if an instance is ejected, that is if it should not receive requests for now
+     */
+    fun isEjected(instance: ServiceInstance): Boolean {
+        val stats = get(instance)
+        return synchronized(stats) { stats.ejectedUntil > System.currentTimeMillis() }
+    }
+
+    /**
+     * Cost of sending a request to an instance: its average latency multiplied by its requests in flight, lower is better
+     */
+    fun cost(instance: ServiceInstance): Double {
+        val stats = get(instance)
+        val latency = synchronized(stats) { maxOf(stats.latency, 0.0) }
+        return (latency + 1) * (stats.inFlight.get() + 1)
+    }
+
+    override fun supports(requestContextClass: Class<*>, responseClass: Class<*>, serverTypeClass: Class<*>) =
+        RequestDataContext::class.java.isAssignableFrom(requestContextClass) &&
+                ResponseData::class.java.isAssignableFrom(responseClass) &&
+                ServiceInstance::class.java.isAssignableFrom(serverTypeClass)
+
+    override fun onStart(request: Request<RequestDataContext>) {}
+
+    override fun onStartRequest(request: Request<RequestDataContext>, lbResponse: Response<ServiceInstance>) {
+        if (!lbResponse.hasServer()) return
+        request.context.requestStartTime = System.nanoTime()
+        get(lbResponse.server).inFlight.incrementAndGet()
+    }
+
+    override fun onComplete(completionContext: CompletionContext<ResponseData, ServiceInstance, RequestDataContext>) {
+        val lbResponse = completionContext.loadBalancerResponse
+        if (lbResponse == null || !lbResponse.hasServer()) return
+
+        val stats = get(lbResponse.server)
+        stats.inFlight.decrementAndGet()
+
+        val serverError = completionContext.clientResponse?.httpStatus?.is5xxServerError() ?: false
+        if (completionContext.status() != CompletionContext.Status.SUCCESS || serverError) {
+            onError(lbResponse.server, stats)
+            return
+        }
+
+        val latency = (System.nanoTime() - completionContext.loadBalancerRequest.context.requestStartTime) / 1_000_000.0
+        val spike = synchronized(stats) {
+            val spike = latencySpikeFactor > 0 && stats.latency > 0 && latency > latencySpikeFactor * stats.latency && latency > latencySpikeMin
+            stats.latency = if (stats.latency < 0) latency else weight * latency + (1 - weight) * stats.latency
+            if (!spike) {
+                stats.consecutiveErrors = 0
+                stats.ejections = 0
+            }
+            spike
+        }
+        if (spike) onError(lbResponse.server, stats)
+    }
+
+    private fun onError(instance: ServiceInstance, stats: Statistics) {
+        synchronized(stats) {
+            stats.consecutiveErrors++
+            if (stats.consecutiveErrors < maxConsecutiveErrors) return
+
+            val duration = minOf(ejectionTime shl minOf(stats.ejections, 20), maxEjectionTime)
+            stats.ejectedUntil = System.currentTimeMillis() + duration
+            stats.ejections++
+            // When the instance comes back, a single error ejects it again until a request succeeds
+            stats.consecutiveErrors = maxConsecutiveErrors - 1
+            System.err.println("Ejecting ${instance.serviceId} instance ${instance.host}:${instance.port} for $duration ms")
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.example.gateway
+
+import org.springframework.beans.factory.ObjectProvider
+import org.springframework.cloud.client.ServiceInstance
+import org.springframework.cloud.client.loadbalancer.DefaultResponse
+import org.springframework.cloud.client.loadbalancer.EmptyResponse
+import org.springframework.cloud.client.loadbalancer.Request
+import org.springframework.cloud.client.loadbalancer.Response
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier
+import reactor.core.publisher.Mono
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Load balancer picking two random instances and sending the request to the cheapest one
+ * (power of two choices), the cost of an instance growing with its latency and its requests in flight
+ */
+class LatencyAwareLoadBalancer(
+    private val supplierProvider: ObjectProvider<ServiceInstanceListSupplier>,
+    private val serviceId: String,
+    private val statistics: InstanceStatistics
+) : ReactorServiceInstanceLoadBalancer {
+
+    override fun choose(request: Request<*>): Mono<Response<ServiceInstance>> {
+        val supplier = supplierProvider.getIfAvailable { NoopServiceInstanceListSupplier() }
+        return supplier.get(request).next().map { choose(it) }
+    }
+
+    private fun choose(instances: List<ServiceInstance>): Response<ServiceInstance> {
+        if (instances.isEmpty()) {
+            System.err.println("No servers available for service: $serviceId")
+            return EmptyResponse()
+        }
+        if (instances.size == 1) return DefaultResponse(instances[0])
+
+        val random = ThreadLocalRandom.current()
+        val first = random.nextInt(instances.size)
+        var second = random.nextInt(instances.size - 1)
+        if (second >= first) second++
+
+        val a = instances[first]
+        val b = instances[second]
+        return DefaultResponse(if (statistics.cost(a) <= statistics.cost(b)) a else b)
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.example.gateway
+
+import org.springframework.cloud.client.ServiceInstance
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory
+import org.springframework.context.ConfigurableApplicationContext
+import org.springframework.context.annotation.Bean
+import org.springframework.core.env.Environment
+
+/**
+ * Load balancer of each Feign client, chosen with load-balancer.clients.{name}: latency-aware, or round-robin by default.
+ * Whatever the strategy, ejected instances are not chosen.
+ * Not annotated with @Configuration as it is instantiated once per client by Spring Cloud LoadBalancer.
+ */
+class LoadBalancerConfiguration {
+
+    @Bean
+    fun serviceInstanceListSupplier(
+        context: ConfigurableApplicationContext,
+        statistics: InstanceStatistics
+    ): ServiceInstanceListSupplier {
+        val discovered = ServiceInstanceListSupplier.builder()
+            .withBlockingDiscoveryClient()
+            .withCaching()
+            .build(context)
+        return OutlierEjectingServiceInstanceListSupplier(discovered, statistics)
+    }
+
+    @Bean
+    fun reactorServiceInstanceLoadBalancer(
+        environment: Environment,
+        loadBalancerClientFactory: LoadBalancerClientFactory,
+        statistics: InstanceStatistics
+    ): ReactorLoadBalancer<ServiceInstance> {
+        val name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME)!!
+        val strategy = environment.getProperty("load-balancer.clients.$name", "round-robin")
+        val supplierProvider = loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier::class.java)
+
+        return if (strategy == "latency-aware") LatencyAwareLoadBalancer(supplierProvider, name, statistics)
+        else RoundRobinLoadBalancer(supplierProvider, name)
+    }
+
+}
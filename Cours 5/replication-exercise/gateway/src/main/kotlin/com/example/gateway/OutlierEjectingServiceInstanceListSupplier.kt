@@ -0,0 +1,25 @@
+package com.example.gateway
+
+import org.springframework.cloud.client.ServiceInstance
+import org.springframework.cloud.client.loadbalancer.Request
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier
+import reactor.core.publisher.Flux
+
+/**
+ * Removes the ejected instances from the instances given by the discovery client.
+ * If all instances are ejected, they are all kept, as an ejected instance is still better than none.
+ */
+class OutlierEjectingServiceInstanceListSupplier(
+    delegate: ServiceInstanceListSupplier,
+    private val statistics: InstanceStatistics
+) : DelegatingServiceInstanceListSupplier(delegate) {
+
+    override fun get(): Flux<List<ServiceInstance>> = delegate.get().map { filter(it) }
+
+    override fun get(request: Request<*>): Flux<List<ServiceInstance>> = delegate.get(request).map { filter(it) }
+
+    private fun filter(instances: List<ServiceInstance>) =
+        instances.filterNot { statistics.isEjected(it) }.ifEmpty { instances }
+
+}